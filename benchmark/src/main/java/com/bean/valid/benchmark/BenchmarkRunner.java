@@ -0,0 +1,32 @@
+package com.bean.valid.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口，在吞吐量之外同时输出gc profiler的内存分配速率(gc.alloc.rate.norm即每次操作分配的字节数)
+ * <p>
+ * java -jar target/benchmarks.jar [JMH命令行参数]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        OptionsBuilder optionsBuilder = new OptionsBuilder();
+        optionsBuilder.parent(commandLineOptions)
+                .addProfiler(GCProfiler.class);
+
+        //未指定要执行的基准测试时，执行全部
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            optionsBuilder.include(BenchmarkRunner.class.getPackage().getName() + ".*Benchmark");
+        }
+
+        Options options = optionsBuilder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,267 @@
+package com.bean.valid.benchmark;
+
+import bean.Data;
+import bean.Data2;
+import bean.GenericData1;
+import bean.GenericData2;
+import com.bean.valid.exption.CustomRuntimeException;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidExceptionFactory;
+import com.bean.valid.util.ValidationPlan;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 校验引擎的基准测试：立即校验与懒惰校验、长短notEmpty链、map/parent深链、自定义校验函数、校验失败抛异常(含不记录堆栈的异常)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidBeanBenchmark {
+
+    /**
+     * 被校验的Data对象
+     */
+    @State(Scope.Benchmark)
+    public static class DataState {
+
+        Data data;
+
+        Data emptyData;
+
+        @Setup
+        public void setup() {
+            data = new Data();
+            data.setBusinessId(12);
+            data.setBusinessList(Arrays.asList(123, 222));
+            data.setActivityId(1);
+            data.setPhone("12345678911");
+
+            emptyData = new Data();
+        }
+    }
+
+    /**
+     * notEmpty链的校验规则
+     */
+    @State(Scope.Benchmark)
+    public static class ChainState {
+
+        /**
+         * notEmpty链的长度
+         */
+        @Param({"3", "40"})
+        int chainLength;
+
+        Function<Data, Object>[] getters;
+
+        @Setup
+        @SuppressWarnings("unchecked")
+        public void setup() {
+            Function<Data, Object>[] allGetters = new Function[]{
+                    (Function<Data, Object>) Data::getBusinessId,
+                    (Function<Data, Object>) Data::getBusinessList,
+                    (Function<Data, Object>) Data::getActivityId,
+                    (Function<Data, Object>) Data::getPhone
+            };
+            getters = new Function[chainLength];
+            for (int i = 0; i < chainLength; i++) {
+                getters[i] = allGetters[i % allGetters.length];
+            }
+        }
+
+        ValidBean<Data> notEmptyChain(ValidBean<Data> validBean) {
+            for (Function<Data, Object> getter : getters) {
+                validBean = validBean.notEmpty(getter, "属性不能为空");
+            }
+            return validBean;
+        }
+    }
+
+    /**
+     * map/parent深链的校验数据
+     */
+    @State(Scope.Benchmark)
+    public static class DeepState {
+
+        /**
+         * map/parent往返的次数
+         */
+        @Param({"1", "8"})
+        int mapDepth;
+
+        Data2<GenericData1, GenericData2> data2;
+
+        ValidationPlan<Data2<GenericData1, GenericData2>> deepPlan;
+
+        @Setup
+        public void setup() {
+            GenericData1 param1 = new GenericData1();
+            param1.setStartDate("2019-10-01");
+            param1.setEndDate("2019-10-01");
+
+            GenericData2 param2 = new GenericData2();
+            param2.setName("zld");
+            param2.setSex("男");
+
+            data2 = new Data2<>();
+            data2.setBusinessId(12);
+            data2.setBusinessList(Arrays.asList(123, 222));
+            data2.setParams1(param1);
+            data2.setParams2(param2);
+
+            ValidationPlan.Builder<Data2<GenericData1, GenericData2>> builder = ValidationPlan.builder();
+            builder.notEmpty(Data2::getBusinessId, "商户id不能为空");
+            for (int i = 0; i < mapDepth; i++) {
+                builder = builder.map(Data2::getParams1)
+                        .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                        .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                        .<Data2<GenericData1, GenericData2>>parent()
+                        .map(Data2::getParams2)
+                        .notEmpty(GenericData2::getName, "名字不能为空")
+                        .notEmpty(GenericData2::getSex, "性别不能为空")
+                        .parent();
+            }
+            deepPlan = builder.build();
+        }
+
+        ValidBean<Data2<GenericData1, GenericData2>> deepMapParent(ValidBean<Data2<GenericData1, GenericData2>> validBean) {
+            validBean = validBean.notEmpty(Data2::getBusinessId, "商户id不能为空");
+            for (int i = 0; i < mapDepth; i++) {
+                validBean = validBean.map(Data2::getParams1)
+                        .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                        .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                        .<Data2<GenericData1, GenericData2>>parent()
+                        .map(Data2::getParams2)
+                        .notEmpty(GenericData2::getName, "名字不能为空")
+                        .notEmpty(GenericData2::getSex, "性别不能为空")
+                        .parent();
+            }
+            return validBean;
+        }
+    }
+
+    @Benchmark
+    public ValidBean<Data> eagerNotEmptyChain(DataState dataState, ChainState state) {
+        return state.notEmptyChain(ValidBean.of(dataState.data));
+    }
+
+    @Benchmark
+    public ValidBean<Data> lazyNotEmptyChain(DataState dataState, ChainState state) {
+        ValidBean<Data> validBean = state.notEmptyChain(ValidBean.ofLazy(dataState.data));
+        validBean.complete();
+        return validBean;
+    }
+
+    @Benchmark
+    public ValidBean<Data> lazyPooledNotEmptyChain(DataState dataState, ChainState state) {
+        ValidBean<Data> validBean = state.notEmptyChain(ValidBean.ofLazyPooled(dataState.data));
+        try {
+            validBean.complete();
+        } finally {
+            validBean.release();
+        }
+        return validBean;
+    }
+
+    @Benchmark
+    public ValidBean<Data2<GenericData1, GenericData2>> lazyPooledDeepMapParent(DeepState state) {
+        ValidBean<Data2<GenericData1, GenericData2>> validBean = state.deepMapParent(ValidBean.ofLazyPooled(state.data2));
+        try {
+            validBean.complete();
+        } finally {
+            validBean.release();
+        }
+        return validBean;
+    }
+
+    @Benchmark
+    public ValidBean<Data2<GenericData1, GenericData2>> eagerDeepMapParent(DeepState state) {
+        return state.deepMapParent(ValidBean.of(state.data2));
+    }
+
+    @Benchmark
+    public ValidBean<Data2<GenericData1, GenericData2>> lazyDeepMapParent(DeepState state) {
+        ValidBean<Data2<GenericData1, GenericData2>> validBean = state.deepMapParent(ValidBean.ofLazy(state.data2));
+        validBean.complete();
+        return validBean;
+    }
+
+    @Benchmark
+    public void planDeepMapParent(DeepState state) {
+        state.deepPlan.valid(state.data2);
+    }
+
+    @Benchmark
+    public ValidBean<Data> eagerCustomValidFunction(DataState state) {
+        return ValidBean.of(state.data)
+                .valid(Data::getPhone, StringUtils::isNumeric, "手机号码存在非数字字符")
+                .valid(Data::getPhone, phone -> phone.length() == 11, "手机号码的长度必须是11位")
+                .valid(Data::getBusinessId, id -> id > 0, "商户id必须大于0");
+    }
+
+    @Benchmark
+    public ValidBean<Data> lazyCustomValidFunction(DataState state) {
+        ValidBean<Data> validBean = ValidBean.ofLazy(state.data)
+                .valid(Data::getPhone, StringUtils::isNumeric, "手机号码存在非数字字符")
+                .valid(Data::getPhone, phone -> phone.length() == 11, "手机号码的长度必须是11位")
+                .valid(Data::getBusinessId, id -> id > 0, "商户id必须大于0");
+        validBean.complete();
+        return validBean;
+    }
+
+    @Benchmark
+    public ValidBean<Data> lazyBoxedNumberRule(DataState state) {
+        ValidBean<Data> validBean = ValidBean.ofLazy(state.data)
+                .valid(data -> data.getBusinessId() * 10L, id -> id > 0, "商户id必须大于0")
+                .valid(data -> data.getActivityId() + 0.5, id -> id > 0, "活动id必须大于0");
+        validBean.complete();
+        return validBean;
+    }
+
+    @Benchmark
+    public ValidBean<Data> lazyPrimitiveNumberRule(DataState state) {
+        ValidBean<Data> validBean = ValidBean.ofLazy(state.data)
+                .validLong(data -> data.getBusinessId() * 10L, id -> id > 0, "商户id必须大于0")
+                .validDouble(data -> data.getActivityId() + 0.5, id -> id > 0, "活动id必须大于0");
+        validBean.complete();
+        return validBean;
+    }
+
+    @Benchmark
+    public ParamException eagerFailure(DataState dataState, ChainState state) {
+        try {
+            state.notEmptyChain(ValidBean.of(dataState.emptyData));
+            return null;
+        } catch (ParamException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public ParamException lazyFailure(DataState dataState, ChainState state) {
+        try {
+            state.notEmptyChain(ValidBean.ofLazy(dataState.emptyData)).complete();
+            return null;
+        } catch (ParamException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public CustomRuntimeException lazyStacklessFailure(DataState dataState, ChainState state) {
+        try {
+            state.notEmptyChain(ValidBean.ofLazy(dataState.emptyData).exceptionFactory(ValidExceptionFactory.STACKLESS)).complete();
+            return null;
+        } catch (CustomRuntimeException e) {
+            return e;
+        }
+    }
+}
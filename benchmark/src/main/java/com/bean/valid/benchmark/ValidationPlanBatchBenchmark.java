@@ -0,0 +1,91 @@
+package com.bean.valid.benchmark;
+
+import bean.Data1;
+import bean.GenericData1;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBatchResult;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidationPlan;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量校验的基准测试：逐个ValidBean校验并捕获异常，与ValidationPlan的validateAll对比
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationPlanBatchBenchmark {
+
+    /**
+     * 批量校验的对象个数
+     */
+    @Param({"100000"})
+    private int batchSize;
+
+    /**
+     * 每多少个对象中有一个未通过校验
+     */
+    @Param({"100"})
+    private int failEvery;
+
+    private List<Data1<GenericData1>> beanList;
+
+    private ValidationPlan<Data1<GenericData1>> plan;
+
+    @Setup
+    public void setup() {
+        beanList = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            Data1<GenericData1> data = new Data1<>();
+            data.setBusinessId(i % failEvery == 0 ? null : i);
+            data.setBusinessList(Arrays.asList(123, 222));
+
+            GenericData1 param1 = new GenericData1();
+            param1.setStartDate("2019-10-01");
+            param1.setEndDate("2019-10-01");
+            data.setParams1(param1);
+
+            beanList.add(data);
+        }
+
+        plan = ValidationPlan.<Data1<GenericData1>>builder()
+                .notEmpty(Data1::getBusinessId, "商户id不能为空")
+                .notEmpty(Data1::getBusinessList, "商户列表不能为空")
+                .map(Data1::getParams1)
+                .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                .build();
+    }
+
+    @Benchmark
+    public int validBeanLoop() {
+        int failedCount = 0;
+        for (Data1<GenericData1> data : beanList) {
+            try {
+                ValidBean.of(data)
+                        .notEmpty(Data1::getBusinessId, "商户id不能为空")
+                        .notEmpty(Data1::getBusinessList, "商户列表不能为空")
+                        .map(Data1::getParams1)
+                        .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                        .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                        .complete();
+            } catch (ParamException e) {
+                failedCount++;
+            }
+        }
+        return failedCount;
+    }
+
+    @Benchmark
+    public ValidBatchResult planValidateAll() {
+        return plan.validateAll(beanList);
+    }
+}
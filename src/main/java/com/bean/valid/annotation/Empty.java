@@ -0,0 +1,17 @@
+package com.bean.valid.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 属性需要为空，与ValidBean的empty方法一致。可以标注在getter方法或者字段上，通过AnnotationValidator校验
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Empty {
+
+    /**
+     * @return 未通过校验时的错误信息，为空时使用默认错误信息
+     */
+    String errorMsg() default "";
+}
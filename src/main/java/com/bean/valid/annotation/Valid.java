@@ -0,0 +1,25 @@
+package com.bean.valid.annotation;
+
+import com.bean.valid.util.ValidBean;
+
+import java.lang.annotation.*;
+
+/**
+ * 使用自定义校验函数校验属性，与ValidBean的valid方法一致。可以标注在getter方法或者字段上，通过AnnotationValidator校验
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.FIELD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Valid {
+
+    /**
+     * @return 校验函数的实现类，需要有public的无参构造方法，每个类只会创建一次。不指定时使用默认校验函数(非空校验)
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends ValidBean.ValidFunction> rule() default ValidBean.ValidFunction.class;
+
+    /**
+     * @return 未通过校验时的错误信息，为空时使用默认错误信息
+     */
+    String errorMsg() default "";
+}
@@ -12,4 +12,12 @@ public abstract class CustomRuntimeException extends RuntimeException {
     public CustomRuntimeException(String errorMsg, Throwable throwable){
         super(errorMsg,throwable);
     }
+
+    /**
+     * @param errorMsg           错误信息
+     * @param writableStackTrace 是否记录堆栈，为false时不会执行fillInStackTrace，同时禁用suppressed异常
+     */
+    protected CustomRuntimeException(String errorMsg, boolean writableStackTrace){
+        super(errorMsg, null, writableStackTrace, writableStackTrace);
+    }
 }
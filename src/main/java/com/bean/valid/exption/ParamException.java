@@ -1,5 +1,8 @@
 package com.bean.valid.exption;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * 参数异常，参数校验异常
  * @Author 周利东
@@ -7,12 +10,67 @@ package com.bean.valid.exption;
  */
 public class ParamException extends CustomRuntimeException {
 
+    /**
+     * 校验错误列表，通过字符串创建的异常为null
+     */
+    private final List<ValidError> validErrors;
+
+    /**
+     * 渲染后的错误信息
+     */
+    private volatile String renderedMessage;
+
     public ParamException(){
         this("参数为空");
     }
 
     public ParamException(String message){
         super(message);
+        this.validErrors = null;
+    }
+
+    /**
+     * @param message            错误信息
+     * @param writableStackTrace 是否记录堆栈，大量校验失败时不记录堆栈可以省去大部分创建异常的开销
+     */
+    public ParamException(String message, boolean writableStackTrace){
+        super(message, writableStackTrace);
+        this.validErrors = null;
+    }
+
+    /**
+     * 由校验错误列表创建异常，错误信息在调用getMessage时才渲染
+     *
+     * @param validErrors        校验错误列表
+     * @param writableStackTrace 是否记录堆栈
+     */
+    public ParamException(List<ValidError> validErrors, boolean writableStackTrace){
+        super(null, writableStackTrace);
+        this.validErrors = validErrors;
+    }
+
+    /**
+     * @return 所有错误信息以","拼接的字符串
+     */
+    @Override
+    public String getMessage() {
+        if (validErrors == null) {
+            return super.getMessage();
+        }
+
+        String message = renderedMessage;
+        if (message == null) {
+            message = ValidError.joinErrorMsg(validErrors);
+            renderedMessage = message;
+        }
+        return message;
+    }
+
+    /**
+     * @return 校验错误列表(包含错误码与未渲染的错误信息)，不是由校验错误列表创建的异常返回空列表
+     */
+    public List<ValidError> getValidErrors() {
+        return validErrors == null ? Collections.emptyList() : Collections.unmodifiableList(validErrors);
     }
 
 }
@@ -0,0 +1,102 @@
+package com.bean.valid.exption;
+
+import java.io.Serializable;
+import java.text.MessageFormat;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 一条校验错误：错误码 + 错误信息模板 + 模板参数。
+ * <p>
+ * 不可变，声明校验规则时创建一次，校验未通过时直接记录该对象，只有在需要错误信息文本时才渲染模板
+ */
+public final class ValidError implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 错误码，未指定时为null
+     */
+    private final String errorCode;
+
+    /**
+     * 错误信息模板，参数占位符与MessageFormat一致，比如{0}
+     */
+    private final String msgTemplate;
+
+    /**
+     * 模板参数
+     */
+    private final Object[] args;
+
+    /**
+     * 错误所在的位置，比如集合元素的"[3]"，为null表示被校验对象本身
+     */
+    private final String path;
+
+    public ValidError(String errorCode, String msgTemplate, Object... args) {
+        this(errorCode, msgTemplate, args, null);
+    }
+
+    private ValidError(String errorCode, String msgTemplate, Object[] args, String path) {
+        this.errorCode = errorCode;
+        this.msgTemplate = msgTemplate;
+        this.args = args;
+        this.path = path;
+    }
+
+    /**
+     * 在错误位置前面加上一段位置，用于集合元素等嵌套校验，原对象不变
+     *
+     * @param parentPath 外层的位置，比如"[3]"
+     * @return
+     */
+    public ValidError withPath(String parentPath) {
+        return new ValidError(errorCode, msgTemplate, args, path == null ? parentPath : parentPath + path);
+    }
+
+    public String getErrorCode() {
+        return errorCode;
+    }
+
+    public String getMsgTemplate() {
+        return msgTemplate;
+    }
+
+    public Object[] getArgs() {
+        return args == null ? new Object[0] : args.clone();
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * 渲染错误信息，存在位置时放在开头
+     *
+     * @return
+     */
+    public String getErrorMsg() {
+        String errorMsg = (args == null || args.length == 0) ? msgTemplate : MessageFormat.format(msgTemplate, args);
+        return path == null ? errorMsg : path + errorMsg;
+    }
+
+    /**
+     * 渲染并以","拼接所有错误信息
+     *
+     * @param validErrors 错误列表
+     * @return
+     */
+    public static String joinErrorMsg(List<ValidError> validErrors) {
+        StringJoiner joiner = new StringJoiner(",");
+        for (ValidError validError : validErrors) {
+            joiner.add(validError.getErrorMsg());
+        }
+        return joiner.toString();
+    }
+
+    @Override
+    public String toString() {
+        return errorCode == null ? getErrorMsg() : errorCode + ":" + getErrorMsg();
+    }
+}
@@ -12,4 +12,8 @@ public class ValidatedException extends CustomRuntimeException {
     public ValidatedException(String msg){
         super(msg);
     }
+
+    public ValidatedException(String msg, Throwable cause){
+        super(msg, cause);
+    }
 }
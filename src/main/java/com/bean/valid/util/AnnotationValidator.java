@@ -0,0 +1,268 @@
+package com.bean.valid.util;
+
+import com.bean.valid.annotation.Empty;
+import com.bean.valid.annotation.NotEmpty;
+import com.bean.valid.annotation.Valid;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidatedException;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 基于注解(@NotEmpty、@Empty、@Valid)的校验。
+ * <p>
+ * 每个类第一次校验时扫描一次注解，把getter方法转换为LambdaMetafactory生成的Function(字段与无法生成的情况使用MethodHandle)，
+ * 编译成ValidationPlan后通过ClassValue缓存，之后的校验不再有任何反射。校验规则与错误信息与ValidBean一致。
+ * <p>
+ * 规则顺序：从父类到子类，每个类先按声明顺序处理字段，再按方法名顺序处理方法。
+ * 字段与它的getter方法(以及子类覆盖的getter方法)属于同一个属性，同一个属性上的同一种注解只添加一次规则
+ */
+public final class AnnotationValidator {
+
+    private static final ClassValue<ValidationPlan<Object>> PLANS = new ClassValue<ValidationPlan<Object>>() {
+        @Override
+        protected ValidationPlan<Object> computeValue(Class<?> type) {
+            return compile(type);
+        }
+    };
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private AnnotationValidator() {
+    }
+
+    /**
+     * 按照对象所属类上的注解校验对象，不符合校验则抛出异常
+     *
+     * @param bean 被校验的对象
+     */
+    public static void valid(Object bean) {
+        if (bean == null) {
+            throw new ParamException("参数不能为空");
+        }
+        PLANS.get(bean.getClass()).valid(bean);
+    }
+
+    /**
+     * 获取指定类的注解编译后的校验计划，可以用于批量校验等场景
+     *
+     * @param beanClass 被校验的类
+     * @param <T>       被校验的类型
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ValidationPlan<T> getPlan(Class<T> beanClass) {
+        Objects.requireNonNull(beanClass);
+        return (ValidationPlan<T>) PLANS.get(beanClass);
+    }
+
+    /**
+     * 扫描类上的注解并编译为校验计划
+     *
+     * @param beanClass 被校验的类
+     * @return
+     */
+    private static ValidationPlan<Object> compile(Class<?> beanClass) {
+        ValidationPlan.Builder<Object> builder = ValidationPlan.builder();
+
+        //从父类到子类
+        Deque<Class<?>> classStack = new ArrayDeque<>();
+        for (Class<?> type = beanClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            classStack.push(type);
+        }
+
+        //已经添加了规则的"属性名@注解"
+        Set<String> addedRuleSet = new HashSet<>();
+        for (Class<?> type : classStack) {
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    addRules(builder, field, field.getName(), addedRuleSet, () -> createGetter(field));
+                }
+            }
+
+            Method[] methods = type.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (!Modifier.isStatic(method.getModifiers()) && !method.isBridge() && !method.isSynthetic()) {
+                    addRules(builder, method, getPropertyName(method), addedRuleSet, () -> createGetter(method));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 获取方法对应的属性名：getXxx与isXxx为xxx，其它方法为方法名
+     *
+     * @param method 方法
+     * @return
+     */
+    private static String getPropertyName(Method method) {
+        String name = method.getName();
+        int prefixLength = name.startsWith("get") ? 3 : name.startsWith("is") ? 2 : 0;
+        if (prefixLength == 0 || name.length() == prefixLength) {
+            return name;
+        }
+        return Character.toLowerCase(name.charAt(prefixLength)) + name.substring(prefixLength + 1);
+    }
+
+    /**
+     * 根据元素上的注解添加校验规则，只在存在注解时才创建getter
+     *
+     * @param builder        校验计划构建器
+     * @param element        字段或方法
+     * @param propertyName   元素对应的属性名
+     * @param addedRuleSet   已经添加了规则的"属性名@注解"，同一个属性上的同一种注解只添加一次
+     * @param getterSupplier 获取被校验值的函数
+     */
+    @SuppressWarnings("unchecked")
+    private static void addRules(ValidationPlan.Builder<Object> builder, AnnotatedElement element, String propertyName,
+                                 Set<String> addedRuleSet, Supplier<Function<Object, Object>> getterSupplier) {
+        NotEmpty notEmpty = element.getAnnotation(NotEmpty.class);
+        if (notEmpty != null && !addedRuleSet.add(propertyName + "@NotEmpty")) {
+            notEmpty = null;
+        }
+        Empty empty = element.getAnnotation(Empty.class);
+        if (empty != null && !addedRuleSet.add(propertyName + "@Empty")) {
+            empty = null;
+        }
+        Valid valid = element.getAnnotation(Valid.class);
+        if (valid != null && !addedRuleSet.add(propertyName + "@Valid")) {
+            valid = null;
+        }
+        if (notEmpty == null && empty == null && valid == null) {
+            return;
+        }
+
+        Function<Object, Object> getter = getterSupplier.get();
+
+        if (notEmpty != null) {
+            if (notEmpty.errorMsg().isEmpty()) {
+                builder.notEmpty(getter);
+            } else {
+                builder.notEmpty(getter, notEmpty.errorMsg());
+            }
+        }
+
+        if (empty != null) {
+            if (empty.errorMsg().isEmpty()) {
+                builder.empty(getter);
+            } else {
+                builder.empty(getter, empty.errorMsg());
+            }
+        }
+
+        if (valid != null) {
+            if (valid.rule() == ValidBean.ValidFunction.class) {
+                builder.valid(getter, valid.errorMsg());
+            } else {
+                builder.valid(getter, newRule(valid.rule()), valid.errorMsg());
+            }
+        }
+    }
+
+    /**
+     * 创建校验函数实例
+     *
+     * @param ruleClass 校验函数的实现类
+     * @return
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static ValidBean.ValidFunction<Object> newRule(Class<? extends ValidBean.ValidFunction> ruleClass) {
+        try {
+            Constructor<? extends ValidBean.ValidFunction> constructor = ruleClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new ValidatedException("无法创建校验函数：" + ruleClass.getName(), e);
+        }
+    }
+
+    /**
+     * 为getter方法创建Function：优先使用LambdaMetafactory生成，调用速度与直接调用相同；无法生成时使用MethodHandle
+     *
+     * @param method getter方法，需要无参且有返回值
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> createGetter(Method method) {
+        if (method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+            throw new ValidatedException("校验注解只能标注在无参且有返回值的方法上：" + method);
+        }
+
+        MethodHandle methodHandle;
+        try {
+            if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                method.setAccessible(true);
+            }
+            methodHandle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ValidatedException("无法访问方法：" + method, e);
+        }
+
+        try {
+            MethodType instantiatedMethodType = MethodType.methodType(method.getReturnType(), method.getDeclaringClass()).wrap();
+            CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    methodHandle,
+                    instantiatedMethodType);
+            return (Function<Object, Object>) callSite.getTarget().invoke();
+        } catch (Throwable e) {
+
+            //非public的方法、其它类加载器加载的类等情况无法生成，使用MethodHandle
+            return toFunction(methodHandle);
+        }
+    }
+
+    /**
+     * 为字段创建Function，优先使用同名的public getter方法
+     *
+     * @param field 字段
+     * @return
+     */
+    private static Function<Object, Object> createGetter(Field field) {
+        String name = field.getName();
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String getterName : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                Method getter = field.getDeclaringClass().getMethod(getterName);
+                if (getter.getReturnType() != void.class) {
+                    return createGetter(getter);
+                }
+            } catch (NoSuchMethodException e) {
+                //没有该getter方法
+            }
+        }
+
+        try {
+            field.setAccessible(true);
+            return toFunction(LOOKUP.unreflectGetter(field));
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ValidatedException("无法访问字段：" + field, e);
+        }
+    }
+
+    /**
+     * 把MethodHandle包装为Function
+     *
+     * @param methodHandle 接收一个参数并有返回值的MethodHandle
+     * @return
+     */
+    private static Function<Object, Object> toFunction(MethodHandle methodHandle) {
+        MethodHandle genericHandle = methodHandle.asType(MethodType.methodType(Object.class, Object.class));
+        return bean -> {
+            try {
+                return genericHandle.invokeExact(bean);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        };
+    }
+}
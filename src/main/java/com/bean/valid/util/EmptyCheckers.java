@@ -0,0 +1,124 @@
+package com.bean.valid.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+
+/**
+ * 按被校验值的运行时类型分派的空值判断。
+ * <p>
+ * 每个类型第一次出现时解析出对应的判断函数，并通过ClassValue缓存，之后直接取用，
+ * 避免每次校验都走一遍instanceof判断链。支持String、CharSequence、Collection、Map、Optional、
+ * 对象数组与基本类型数组，判断时不会拷贝或装箱
+ */
+final class EmptyCheckers {
+
+    /**
+     * 空值判断函数
+     */
+    @FunctionalInterface
+    interface EmptyChecker {
+
+        /**
+         * @param value 被校验的值，不为null，类型与解析该函数时的类型一致
+         * @return 是否为空
+         */
+        boolean isEmpty(Object value);
+    }
+
+    /**
+     * 不属于以上任何类型的值，只要不为null就不为空
+     */
+    private static final EmptyChecker NEVER_EMPTY = value -> false;
+
+    private static final ClassValue<EmptyChecker> CHECKERS = new ClassValue<EmptyChecker>() {
+        @Override
+        protected EmptyChecker computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    private EmptyCheckers() {
+    }
+
+    /**
+     * 判断值是否为空：null、空白字符串、空集合、空Map、不存在值的Optional、长度为0的数组
+     *
+     * @param value 被校验的值
+     * @return
+     */
+    static boolean isEmpty(Object value) {
+        return value == null || CHECKERS.get(value.getClass()).isEmpty(value);
+    }
+
+    /**
+     * 解析指定类型的空值判断函数
+     *
+     * @param type 被校验的值的运行时类型
+     * @return
+     */
+    private static EmptyChecker resolve(Class<?> type) {
+        if (type == String.class) {
+            return value -> StringUtils.isBlank((String) value);
+        }
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return value -> StringUtils.isBlank((CharSequence) value);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return value -> ((Collection<?>) value).isEmpty();
+        }
+        if (Map.class.isAssignableFrom(type)) {
+            return value -> ((Map<?, ?>) value).isEmpty();
+        }
+        if (type == Optional.class) {
+            return value -> !((Optional<?>) value).isPresent();
+        }
+        if (type == OptionalInt.class) {
+            return value -> !((OptionalInt) value).isPresent();
+        }
+        if (type == OptionalLong.class) {
+            return value -> !((OptionalLong) value).isPresent();
+        }
+        if (type == OptionalDouble.class) {
+            return value -> !((OptionalDouble) value).isPresent();
+        }
+        if (type.isArray()) {
+            return resolveArray(type.getComponentType());
+        }
+        return NEVER_EMPTY;
+    }
+
+    /**
+     * 解析数组的空值判断函数，基本类型数组各自直接取length
+     *
+     * @param componentType 数组元素类型
+     * @return
+     */
+    private static EmptyChecker resolveArray(Class<?> componentType) {
+        if (!componentType.isPrimitive()) {
+            return value -> ((Object[]) value).length == 0;
+        }
+        if (componentType == byte.class) {
+            return value -> ((byte[]) value).length == 0;
+        }
+        if (componentType == int.class) {
+            return value -> ((int[]) value).length == 0;
+        }
+        if (componentType == long.class) {
+            return value -> ((long[]) value).length == 0;
+        }
+        if (componentType == char.class) {
+            return value -> ((char[]) value).length == 0;
+        }
+        if (componentType == double.class) {
+            return value -> ((double[]) value).length == 0;
+        }
+        if (componentType == float.class) {
+            return value -> ((float[]) value).length == 0;
+        }
+        if (componentType == short.class) {
+            return value -> ((short[]) value).length == 0;
+        }
+        return value -> ((boolean[]) value).length == 0;
+    }
+}
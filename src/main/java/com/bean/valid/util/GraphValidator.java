@@ -0,0 +1,446 @@
+package com.bean.valid.util;
+
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidError;
+import com.bean.valid.exption.ValidatedException;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 对象图校验：从根对象出发，按注册的子对象关系遍历所有可达的对象，每个对象按其类型注册的校验计划校验一次。
+ * <pre>
+ * private static final GraphValidator VALIDATOR = GraphValidator.builder()
+ *         .rules(Order.class, ORDER_PLAN)
+ *         .child(Order.class, "shipments", Order::getShipments)
+ *         .rules(Shipment.class, SHIPMENT_PLAN)
+ *         .child(Shipment.class, "items", Shipment::getItems)
+ *         .rules(Item.class, ITEM_PLAN)
+ *         .build();
+ *
+ * VALIDATOR.valid(order);  //错误信息比如"[shipments[2].items[0]]商品id不能为空"
+ * </pre>
+ * 使用显式的栈代替递归，很深的对象图也不会栈溢出；通过引用相等的已访问集合处理循环引用与共享的对象，
+ * 每个对象只入栈、只校验一次，栈中每个对象只保存父节点引用，错误位置只在出现错误时才拼接。
+ * <p>
+ * 按深度优先的顺序校验，子对象按注册与集合中的顺序处理，错误按校验顺序排列，根对象的错误没有位置。
+ * 注册的类型对子类同样生效；构建后不可变，可以在多线程中共享
+ */
+public final class GraphValidator {
+
+    /**
+     * 按注册顺序排列的校验计划
+     */
+    private final List<Registration<ValidationPlan<Object>>> planList;
+
+    /**
+     * 按注册顺序排列的子对象关系
+     */
+    private final List<Registration<Edge>> edgeList;
+
+    /**
+     * 每个运行时类型对应的校验计划与子对象关系，第一次出现时按注册的类型解析
+     */
+    private final ClassValue<NodeRule> nodeRules = new ClassValue<NodeRule>() {
+        @Override
+        protected NodeRule computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    /**
+     * 最多访问的对象个数，0表示不限制
+     */
+    private final int maxNodes;
+
+    /**
+     * 最多收集的错误信息条数，达到后不再校验剩余的对象。0表示不限制
+     */
+    private final int errorBudget;
+
+    /**
+     * 校验未通过时创建异常的工厂
+     */
+    private final ValidExceptionFactory exceptionFactory;
+
+    private GraphValidator(Builder builder) {
+        this.planList = new ArrayList<>(builder.planList);
+        this.edgeList = new ArrayList<>(builder.edgeList);
+        this.maxNodes = builder.maxNodes;
+        this.errorBudget = builder.errorBudget;
+        this.exceptionFactory = builder.exceptionFactory;
+    }
+
+    /**
+     * 创建对象图校验的构建器
+     *
+     * @return
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 校验对象图，不符合校验则抛出异常
+     *
+     * @param root 根对象
+     */
+    public void valid(Object root) {
+        if (root == null) {
+            throw new ParamException("参数不能为空");
+        }
+
+        List<ValidError> validErrors = validGraph(root);
+        if (!validErrors.isEmpty()) {
+            throw exceptionFactory.newException(validErrors);
+        }
+    }
+
+    /**
+     * 校验对象图，不抛出异常
+     *
+     * @param root 根对象
+     * @return 所有错误信息拼接后的字符串，通过校验时为null
+     */
+    public String getErrorMsg(Object root) {
+        if (root == null) {
+            return "参数不能为空";
+        }
+
+        List<ValidError> validErrors = validGraph(root);
+        return validErrors.isEmpty() ? null : ValidError.joinErrorMsg(validErrors);
+    }
+
+    /**
+     * 校验对象图，不抛出异常
+     *
+     * @param root 根对象
+     * @return 按校验顺序排列的错误列表，通过校验时为空列表
+     */
+    public List<ValidError> getValidErrors(Object root) {
+        if (root == null) {
+            return Collections.singletonList(new ValidError(null, "参数不能为空"));
+        }
+        return validGraph(root);
+    }
+
+    /**
+     * 深度优先遍历对象图并校验每个对象
+     *
+     * @param root 根对象
+     * @return 错误列表，通过校验时为空列表
+     */
+    private List<ValidError> validGraph(Object root) {
+        List<ValidError> validErrors = Collections.emptyList();
+
+        Deque<Node> stack = new ArrayDeque<>();
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        //当前对象的子对象，反向入栈后按注册与集合中的顺序出栈
+        List<Node> children = new ArrayList<>();
+
+        stack.push(new Node(root, null, null, null));
+        visited.add(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            NodeRule nodeRule = nodeRules.get(node.bean.getClass());
+
+            for (ValidationPlan<Object> plan : nodeRule.plans) {
+                List<ValidError> nodeValidErrors = plan.getValidErrors(node.bean);
+                if (nodeValidErrors.isEmpty()) {
+                    continue;
+                }
+                if (validErrors.isEmpty()) {
+                    validErrors = new ArrayList<>();
+                }
+
+                //与ValidChain.addValidErrors一样，超过errorBudget的错误信息不再记录
+                String path = node.getPath();
+                for (ValidError validError : nodeValidErrors) {
+                    if (errorBudget > 0 && validErrors.size() >= errorBudget) {
+                        break;
+                    }
+                    validErrors.add(path == null ? validError : validError.withPath(path));
+                }
+                if (errorBudget > 0 && validErrors.size() >= errorBudget) {
+                    break;
+                }
+            }
+
+            if (errorBudget > 0 && validErrors.size() >= errorBudget) {
+                break;
+            }
+
+            for (Edge edge : nodeRule.edges) {
+                addChildren(node, edge, children, visited);
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+            children.clear();
+        }
+        return validErrors;
+    }
+
+    /**
+     * 获取子对象，没有访问过的加入children。子对象可以是单个对象、集合、Map(value)或者对象数组
+     *
+     * @param parent   父节点
+     * @param edge     子对象关系
+     * @param children 子节点列表
+     * @param visited  已访问的对象
+     */
+    private void addChildren(Node parent, Edge edge, List<Node> children, Set<Object> visited) {
+        Object child = edge.getter.apply(parent.bean);
+        if (child == null) {
+            return;
+        }
+
+        if (child instanceof Collection) {
+            int index = 0;
+            for (Object element : (Collection<?>) child) {
+                addChild(new Node(element, parent, edge.name, index++), children, visited);
+            }
+        } else if (child instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) child).entrySet()) {
+                addChild(new Node(entry.getValue(), parent, edge.name, entry.getKey()), children, visited);
+            }
+        } else if (child instanceof Object[]) {
+            Object[] array = (Object[]) child;
+            for (int i = 0; i < array.length; i++) {
+                addChild(new Node(array[i], parent, edge.name, i), children, visited);
+            }
+        } else {
+            addChild(new Node(child, parent, edge.name, null), children, visited);
+        }
+    }
+
+    private void addChild(Node child, List<Node> children, Set<Object> visited) {
+        if (child.bean == null || !visited.add(child.bean)) {
+            return;
+        }
+        if (maxNodes > 0 && visited.size() > maxNodes) {
+            throw new ValidatedException("对象图中的对象个数超过限制：" + maxNodes);
+        }
+        children.add(child);
+    }
+
+    /**
+     * 按注册顺序找出运行时类型适用的校验计划与子对象关系
+     *
+     * @param type 运行时类型
+     * @return
+     */
+    private NodeRule resolve(Class<?> type) {
+        List<ValidationPlan<Object>> plans = new ArrayList<>();
+        for (Registration<ValidationPlan<Object>> registration : planList) {
+            if (registration.type.isAssignableFrom(type)) {
+                plans.add(registration.value);
+            }
+        }
+
+        List<Edge> edges = new ArrayList<>();
+        for (Registration<Edge> registration : edgeList) {
+            if (registration.type.isAssignableFrom(type)) {
+                edges.add(registration.value);
+            }
+        }
+        return new NodeRule(plans, edges);
+    }
+
+    /**
+     * 对象图中的节点，只保存父节点引用，位置在出现错误时才拼接
+     */
+    private static final class Node {
+        private final Object bean;
+
+        private final Node parent;
+
+        /**
+         * 父对象中的属性名，根节点为null
+         */
+        private final String name;
+
+        /**
+         * 集合与数组中的位置或者Map的key，不是集合元素时为null
+         */
+        private final Object key;
+
+        Node(Object bean, Node parent, String name, Object key) {
+            this.bean = bean;
+            this.parent = parent;
+            this.name = name;
+            this.key = key;
+        }
+
+        /**
+         * @return 从根对象到当前对象的位置，比如"[shipments[2].items[0]]"，根对象为null
+         */
+        String getPath() {
+            if (parent == null) {
+                return null;
+            }
+
+            Deque<Node> nodes = new ArrayDeque<>();
+            for (Node node = this; node.parent != null; node = node.parent) {
+                nodes.push(node);
+            }
+
+            StringBuilder path = new StringBuilder("[");
+            for (Node node : nodes) {
+                if (path.length() > 1) {
+                    path.append('.');
+                }
+                path.append(node.name);
+                if (node.key != null) {
+                    path.append('[').append(node.key).append(']');
+                }
+            }
+            return path.append(']').toString();
+        }
+    }
+
+    /**
+     * 运行时类型适用的校验计划与子对象关系
+     */
+    private static final class NodeRule {
+        private final List<ValidationPlan<Object>> plans;
+
+        private final List<Edge> edges;
+
+        NodeRule(List<ValidationPlan<Object>> plans, List<Edge> edges) {
+            this.plans = plans;
+            this.edges = edges;
+        }
+    }
+
+    /**
+     * 子对象关系
+     */
+    private static final class Edge {
+        private final String name;
+
+        private final Function<Object, ?> getter;
+
+        Edge(String name, Function<Object, ?> getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+    }
+
+    /**
+     * 注册到类型上的校验计划或者子对象关系
+     */
+    private static final class Registration<V> {
+        private final Class<?> type;
+
+        private final V value;
+
+        Registration(Class<?> type, V value) {
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 对象图校验的构建器，不是线程安全的
+     */
+    public static final class Builder {
+
+        private final List<Registration<ValidationPlan<Object>>> planList = new ArrayList<>();
+
+        private final List<Registration<Edge>> edgeList = new ArrayList<>();
+
+        private int maxNodes;
+
+        private int errorBudget;
+
+        private ValidExceptionFactory exceptionFactory = ValidExceptionFactory.FULL_STACK_TRACE;
+
+        private Builder() {
+        }
+
+        /**
+         * 注册类型的校验计划，同一个类型可以注册多个，按注册顺序执行
+         *
+         * @param type 被校验的类型，对子类同样生效
+         * @param plan 校验计划
+         * @param <T>  被校验的类型
+         * @return
+         */
+        @SuppressWarnings("unchecked")
+        public <T> Builder rules(Class<T> type, ValidationPlan<? super T> plan) {
+            Objects.requireNonNull(type);
+            Objects.requireNonNull(plan);
+            planList.add(new Registration<>(type, (ValidationPlan<Object>) plan));
+            return this;
+        }
+
+        /**
+         * 注册子对象关系，遍历时按注册顺序处理
+         *
+         * @param type   父对象的类型，对子类同样生效
+         * @param name   属性名，用于错误位置
+         * @param getter 获取子对象的函数，可以返回单个对象、集合、Map(校验value)或者对象数组，返回null时跳过
+         * @param <T>    父对象的类型
+         * @return
+         */
+        @SuppressWarnings("unchecked")
+        public <T> Builder child(Class<T> type, String name, Function<? super T, ?> getter) {
+            Objects.requireNonNull(type);
+            Objects.requireNonNull(name);
+            Objects.requireNonNull(getter);
+            edgeList.add(new Registration<>(type, new Edge(name, (Function<Object, ?>) getter)));
+            return this;
+        }
+
+        /**
+         * 最多访问的对象个数，超过时抛出ValidatedException，用于限制不可信的输入
+         *
+         * @param maxNodes 对象个数，0表示不限制
+         * @return
+         */
+        public Builder maxNodes(int maxNodes) {
+            if (maxNodes < 0) {
+                throw new IllegalArgumentException("对象个数不能小于0");
+            }
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        /**
+         * 收集到errorBudget条错误信息后就停止，不再校验剩余的对象
+         *
+         * @param errorBudget 最多收集的错误信息条数，0表示不限制
+         * @return
+         */
+        public Builder errorBudget(int errorBudget) {
+            if (errorBudget < 0) {
+                throw new IllegalArgumentException("错误信息条数不能小于0");
+            }
+            this.errorBudget = errorBudget;
+            return this;
+        }
+
+        /**
+         * 设置校验未通过时创建异常的工厂
+         *
+         * @param exceptionFactory 比如不记录堆栈的ValidExceptionFactory.STACKLESS
+         * @return
+         */
+        public Builder exceptionFactory(ValidExceptionFactory exceptionFactory) {
+            Objects.requireNonNull(exceptionFactory);
+            this.exceptionFactory = exceptionFactory;
+            return this;
+        }
+
+        /**
+         * 构建不可变的对象图校验
+         *
+         * @return
+         */
+        public GraphValidator build() {
+            return new GraphValidator(this);
+        }
+    }
+}
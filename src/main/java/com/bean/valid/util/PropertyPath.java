@@ -0,0 +1,171 @@
+package com.bean.valid.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 属性路径，用于从Map与List组成的对象(比如JSON解析后的Map)中获取被校验的值，比如"params1.endDate"、"items[0].name"。
+ * <p>
+ * 路径在第一次使用时解析为属性名数组并缓存，属性名通过String.intern()驻留，之后获取值时不再拆分字符串；
+ * JSON解析器通常也会驻留属性名，Map查找时可以直接通过引用相等比较
+ */
+public final class PropertyPath implements Function<Object, Object> {
+
+    /**
+     * 最多缓存的路径个数，超过后不再缓存，避免动态拼接的路径撑满缓存
+     */
+    private static final int MAX_CACHE_SIZE = 4096;
+
+    private static final ConcurrentHashMap<String, PropertyPath> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 原始路径
+     */
+    private final String path;
+
+    /**
+     * 每一级的属性名，已驻留；List下标为null
+     */
+    private final String[] segments;
+
+    /**
+     * 每一级的List下标，属性名为-1
+     */
+    private final int[] indexes;
+
+    private PropertyPath(String path, String[] segments, int[] indexes) {
+        this.path = path;
+        this.segments = segments;
+        this.indexes = indexes;
+    }
+
+    /**
+     * 获取解析后的属性路径，同一个路径只解析一次
+     *
+     * @param path 属性路径，属性名之间以.分隔，List下标写在[]中
+     * @return
+     */
+    public static PropertyPath of(String path) {
+        PropertyPath propertyPath = CACHE.get(path);
+        if (propertyPath != null) {
+            return propertyPath;
+        }
+
+        propertyPath = parse(path);
+        if (CACHE.size() < MAX_CACHE_SIZE) {
+            PropertyPath cachedPropertyPath = CACHE.putIfAbsent(path, propertyPath);
+            if (cachedPropertyPath != null) {
+                return cachedPropertyPath;
+            }
+        }
+        return propertyPath;
+    }
+
+    /**
+     * 解析属性路径
+     *
+     * @param path 属性路径
+     * @return
+     */
+    private static PropertyPath parse(String path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("属性路径不能为空");
+        }
+
+        List<String> segmentList = new ArrayList<>();
+        List<Integer> indexList = new ArrayList<>();
+        int i = 0;
+        while (i < path.length()) {
+            char c = path.charAt(i);
+            if (c == '[') {
+                int end = path.indexOf(']', i);
+                if (end < 0) {
+                    throw new IllegalArgumentException("属性路径格式错误：" + path);
+                }
+                segmentList.add(null);
+                indexList.add(parseIndex(path, path.substring(i + 1, end)));
+                i = end + 1;
+            } else {
+                if (c == '.') {
+                    if (segmentList.isEmpty()) {
+                        throw new IllegalArgumentException("属性路径格式错误：" + path);
+                    }
+                    i++;
+                }
+                int end = i;
+                while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+                    end++;
+                }
+                if (end == i) {
+                    throw new IllegalArgumentException("属性路径格式错误：" + path);
+                }
+                segmentList.add(path.substring(i, end).intern());
+                indexList.add(-1);
+                i = end;
+            }
+        }
+
+        int[] indexes = new int[indexList.size()];
+        for (int j = 0; j < indexes.length; j++) {
+            indexes[j] = indexList.get(j);
+        }
+        return new PropertyPath(path, segmentList.toArray(new String[0]), indexes);
+    }
+
+    private static int parseIndex(String path, String index) {
+        try {
+            int value = Integer.parseInt(index);
+            if (value >= 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            //下标不是数字
+        }
+        throw new IllegalArgumentException("属性路径格式错误：" + path);
+    }
+
+    /**
+     * 获取路径对应的值，中间任意一级为null、不是Map或者List、下标越界时返回null
+     *
+     * @param root 根对象，通常为Map
+     * @return
+     */
+    @Override
+    public Object apply(Object root) {
+        Object value = root;
+        for (int i = 0; i < segments.length && value != null; i++) {
+            if (indexes[i] < 0) {
+                value = value instanceof Map ? ((Map<?, ?>) value).get(segments[i]) : null;
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                value = indexes[i] < list.size() ? list.get(indexes[i]) : null;
+            } else if (value instanceof Object[]) {
+                Object[] array = (Object[]) value;
+                value = indexes[i] < array.length ? array[indexes[i]] : null;
+            } else {
+                value = null;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 转换为指定类型的获取值的函数，用于ValidBean与ValidationPlan.Builder的方法引用参数，比如
+     * notEmpty(PropertyPath.of("params1.endDate").asFunction(), "结束时间不能为空")
+     *
+     * @param <T> 根对象类型
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Function<T, Object> asFunction() {
+        return (Function<T, Object>) (Function<?, Object>) this;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
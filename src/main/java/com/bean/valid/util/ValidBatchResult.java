@@ -0,0 +1,117 @@
+package com.bean.valid.util;
+
+import com.bean.valid.exption.ValidError;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * 批量校验的结果，按被校验集合中的位置索引，通过ValidationPlan的validateAll方法得到
+ */
+public final class ValidBatchResult {
+
+    /**
+     * 每个位置的错误列表，通过校验的位置为null，错误信息在获取时才拼接
+     */
+    private final List<ValidError>[] validErrors;
+
+    /**
+     * 未通过校验的位置，从小到大排列
+     */
+    private final int[] failedIndexes;
+
+    /**
+     * 校验未通过时创建异常的工厂
+     */
+    private final ValidExceptionFactory exceptionFactory;
+
+    ValidBatchResult(List<ValidError>[] validErrors, ValidExceptionFactory exceptionFactory) {
+        this.validErrors = validErrors;
+        this.exceptionFactory = exceptionFactory;
+
+        int failedCount = 0;
+        for (List<ValidError> beanValidErrors : validErrors) {
+            if (beanValidErrors != null) {
+                failedCount++;
+            }
+        }
+
+        failedIndexes = new int[failedCount];
+        for (int i = 0, j = 0; i < validErrors.length; i++) {
+            if (validErrors[i] != null) {
+                failedIndexes[j++] = i;
+            }
+        }
+    }
+
+    /**
+     * @return 被校验的对象个数
+     */
+    public int size() {
+        return validErrors.length;
+    }
+
+    /**
+     * @return 是否全部通过校验
+     */
+    public boolean isPass() {
+        return failedIndexes.length == 0;
+    }
+
+    /**
+     * @param index 对象在被校验集合中的位置
+     * @return 指定位置的对象是否通过校验
+     */
+    public boolean isPass(int index) {
+        return validErrors[index] == null;
+    }
+
+    /**
+     * @param index 对象在被校验集合中的位置
+     * @return 指定位置的对象的错误信息，通过校验时为null
+     */
+    public String getErrorMsg(int index) {
+        List<ValidError> beanValidErrors = validErrors[index];
+        return beanValidErrors == null ? null : ValidError.joinErrorMsg(beanValidErrors);
+    }
+
+    /**
+     * @param index 对象在被校验集合中的位置
+     * @return 指定位置的对象的错误列表，通过校验时为空列表
+     */
+    public List<ValidError> getValidErrors(int index) {
+        List<ValidError> beanValidErrors = validErrors[index];
+        return beanValidErrors == null ? Collections.emptyList() : Collections.unmodifiableList(beanValidErrors);
+    }
+
+    /**
+     * @return 未通过校验的对象个数
+     */
+    public int getFailedCount() {
+        return failedIndexes.length;
+    }
+
+    /**
+     * @return 未通过校验的位置，从小到大排列
+     */
+    public int[] getFailedIndexes() {
+        return Arrays.copyOf(failedIndexes, failedIndexes.length);
+    }
+
+    /**
+     * 存在未通过校验的对象时抛出异常，错误信息格式为"[位置]错误信息"，多个之间以;分隔
+     */
+    public void throwExceptionIfExitsErrorMsg() {
+        if (isPass()) {
+            return;
+        }
+
+        StringJoiner joiner = new StringJoiner(";");
+        for (int failedIndex : failedIndexes) {
+            joiner.add("[" + failedIndex + "]" + getErrorMsg(failedIndex));
+        }
+        throw exceptionFactory.newException(joiner.toString());
+    }
+}
@@ -2,12 +2,16 @@ package com.bean.valid.util;
 
 
 import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidError;
 import com.bean.valid.exption.ValidatedException;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.*;
 
 /**
  * 校验对象的指定方法返回值
@@ -20,37 +24,13 @@ public class ValidBean<T> {
     /**
      * 非空的校验函数与对应默认错误信息
      */
-    private final static ValidPair<Object> needNotEmptyValidPair = new ValidPair() {
+    final static ValidPair<Object> needNotEmptyValidPair = new ValidPair() {
         {
             /**
-             * 需要非空值，如果被校验值是空值，则返回false，反之返回true
+             * 需要非空值，如果被校验值是空值，则返回false，反之返回true。
+             * 支持String、CharSequence、Collection、Map、Optional、数组的空校验，按值的类型分派并缓存
              */
-            validFunction = validValue -> {
-
-                if (validValue == null) {
-                    return false;
-                }
-
-                if (validValue instanceof String) {
-                    if (StringUtils.isBlank(validValue.toString())) {
-                        return false;
-                    }
-                }
-
-                if (validValue instanceof Collection) {
-                    if (CollectionUtils.isEmpty((Collection) validValue)) {
-                        return false;
-                    }
-                }
-
-                if (validValue instanceof Map) {
-                    if (((Map) validValue).isEmpty()) {
-                        return false;
-                    }
-                }
-
-                return true;
-            };
+            validFunction = validValue -> !EmptyCheckers.isEmpty(validValue);
 
             errorMsg = "属性不能为空";
         }
@@ -60,81 +40,142 @@ public class ValidBean<T> {
     /**
      * 需要为空的校验函数与对应默认错误信息
      */
-    private final static ValidPair<Object> needEmptyValidPair = new ValidPair() {
+    final static ValidPair<Object> needEmptyValidPair = new ValidPair() {
         {
             /**
              * 需要空值，如果被校验值是空值，则返回true，反之返回false
              */
-            validFunction = validValue -> !needNotEmptyValidPair.validFunction.apply(validValue);
+            validFunction = EmptyCheckers::isEmpty;
 
             errorMsg = "属性需要为空";
         }
     };
 
     /**
-     * 被校验的对象
+     * 并行校验时内置的空值校验的估计耗时
      */
-    private T bean;
+    private static final int BUILT_IN_RULE_COST = 1;
 
     /**
-     * 是否延迟校验。执行valid方法调用链过程中可以通过lazy与immediately方法可以修改，修改后立即生效
-     * （true: 等调用complete方法时全部一起校验。false: 调用valid方法时立马校验）
+     * 并行校验时自定义校验函数、集合元素校验的估计耗时
      */
-    private boolean lazyEnable;
+    private static final int CUSTOM_RULE_COST = 16;
 
     /**
-     * 是否使用默认错误消息（无自定义错误消息时使用默认的）
+     * 待校验数据的估计耗时达到该值才并行校验，否则协调线程的开销会超过校验本身
      */
-    private boolean useDefaultErrorMsgEnable;
+    private static final int PARALLEL_COST_THRESHOLD = 64;
 
     /**
-     * 延迟处理的错误消息列表
+     * 每个名称缓存的规则标识个数，"名称#0"到"名称#255"通知监听器时不用每次拼接
      */
-    private List<String> lazyErrorMsgList;
+    private static final int CACHED_RULE_ID_COUNT = 256;
 
     /**
-     * 默认校验对
+     * 最多缓存规则标识的名称个数，超过后不再缓存，避免动态拼接的名称撑满缓存
      */
-    private ValidPair<Object> defaultValidPair = needNotEmptyValidPair;
+    private static final int MAX_CACHED_NAME_COUNT = 4096;
+
+    private static final ConcurrentHashMap<String, String[]> RULE_ID_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 被校验的对象
+     */
+    private T bean;
+
+    /**
+     * 整条调用链共享的状态：是否延迟校验、待校验的数据列表、异常工厂、错误信息条数限制。
+     * 是否延迟校验在执行valid方法调用链过程中可以通过lazy与immediately方法可以修改，修改后立即生效
+     * （true: 等调用complete方法时全部一起校验。false: 调用valid方法时立马校验）
+     */
+    private final ValidChain chain;
+
+    /**
+     * 是否跳过当前ValidBean的所有校验(when的条件不满足、mapIfPresent的子属性为空)，跳过时方法引用与校验函数都不会执行
+     */
+    private final boolean skipped;
 
     /**
-     * 待校验的校验数据列表
+     * 默认校验对
      */
-    private List<ValidTriple<Object>> validTripleList;
+    private ValidPair<Object> defaultValidPair = needNotEmptyValidPair;
 
 
     /**
-     * 校验需要的三部分相关数据
+     * 校验需要的三部分相关数据：被校验的值(由被校验对象与方法引用得到)、校验函数、错误信息
      *
      * @param <V> 被校验的值类型
      */
     static class ValidTriple<V> {
         /**
-         * 被校验的值
+         * 被校验的对象
          */
-        V validValue;
+        Object bean;
 
         /**
-         * 校验函数（校验validValue字段值的函数）
+         * 获取被校验的值的方法引用，延迟到执行校验时才调用，不持有被校验的值
+         */
+        Function<Object, V> methodRef;
+
+        /**
+         * 校验函数（校验methodRef返回值的函数）
          */
         Function<V, Boolean> validFunction;
 
+        /**
+         * 直接校验被校验对象的函数，不为空时代替methodRef与validFunction，校验过程不会装箱
+         */
+        Predicate<Object> predicate;
+
         /**
          * 当validFunction校验未通过时的错误信息
          */
         String errorMsg;
 
+        /**
+         * 带错误码与消息模板的错误，不为空时代替errorMsg
+         */
+        ValidError validError;
+
+        /**
+         * 直接返回错误列表的校验(集合元素的校验)，不为空时代替其它校验函数
+         */
+        Function<Object, List<ValidError>> errorsFunction;
+
+        /**
+         * 是否在completeAsync时异步执行
+         */
+        boolean async;
+
+        /**
+         * 规则在调用链中的声明位置，用于通知监听器时的规则标识
+         */
+        int ruleIndex;
+
 
-        ValidTriple(V validValue, Function<V, Boolean> validFunction) {
-            this.validValue = validValue;
+        @SuppressWarnings("unchecked")
+        ValidTriple(Object bean, Function<?, V> methodRef, Function<V, Boolean> validFunction, String errorMsg) {
+            this.bean = bean;
+            this.methodRef = (Function<Object, V>) methodRef;
             this.validFunction = validFunction;
+            this.errorMsg = errorMsg;
         }
 
-        ValidTriple(V validValue, Function<V, Boolean> validFunction, String errorMsg) {
-            this.validValue = validValue;
-            this.validFunction = validFunction;
+        @SuppressWarnings("unchecked")
+        ValidTriple(Object bean, Predicate<?> predicate, String errorMsg) {
+            this.bean = bean;
+            this.predicate = (Predicate<Object>) predicate;
             this.errorMsg = errorMsg;
         }
+
+        /**
+         * 调用方法引用获取被校验的值
+         *
+         * @return
+         */
+        V getValidValue() {
+            return methodRef.apply(bean);
+        }
     }
 
     /**
@@ -179,19 +220,50 @@ public class ValidBean<T> {
         Boolean apply(P valid);
     }
 
-    ValidBean(T bean, boolean lazyEnable) {
-        if (bean == null) {
+    ValidBean(T bean, ValidChain chain) {
+        this(bean, chain, false);
+    }
+
+    /**
+     * @param bean    被校验的对象，跳过校验时可以为空
+     * @param chain   调用链共享的状态
+     * @param skipped 是否跳过所有校验
+     */
+    ValidBean(T bean, ValidChain chain, boolean skipped) {
+        if (bean == null && !skipped) {
             throw new ParamException("参数不能为空");
         }
         this.bean = bean;
+        this.skipped = skipped;
 
-        this.lazyEnable = lazyEnable;
+        this.chain = chain;
+        if (chain.rootValidBean == null) {
+            chain.rootValidBean = this;
+        }
+    }
+
+    ValidChain getChain() {
+        return chain;
     }
 
     T getBean() {
         return bean;
     }
 
+    boolean isSkipped() {
+        return skipped;
+    }
+
+    /**
+     * 创建when与group的作用域，校验的对象不变。ValidMapBean覆盖该方法以便作用域中可以继续使用属性路径
+     *
+     * @param scopeSkipped 作用域中的校验是否跳过
+     * @return
+     */
+    ValidSubBean<T, T> newScope(boolean scopeSkipped) {
+        return new ValidSubBean<>(this, bean, scopeSkipped);
+    }
+
     /**
      * 获取父ValidBean,该方法只有ValidSubBean才有用，只有ValidSubBean才有父ValidBean
      *
@@ -202,6 +274,17 @@ public class ValidBean<T> {
         throw new ValidatedException("当前不是ValidSubBean，没有parent");
     }
 
+    /**
+     * 获取父ValidBean，通过typeReference指定父类型的泛型信息
+     *
+     * @param typeReference 父类型的泛型信息
+     * @param <PT>          父类型的泛型类型
+     * @return
+     */
+    public <PT> ValidBean<PT> parent(TypeReference<PT> typeReference) {
+        return parent();
+    }
+
 
     /**
      * 转换为校验另一个对象的ValidBean
@@ -212,324 +295,1317 @@ public class ValidBean<T> {
      */
     public <ST> ValidSubBean<ST, T> map(Function<T, ST> mapper) {
         Objects.requireNonNull(mapper);
+        chain.checkAccess();
+        if (skipped) {
+            return new ValidSubBean<>(this, null, true);
+        }
+
         ST subParamBean = mapper.apply(bean);
         if (subParamBean == null) {
-            throw new ParamException("被校验的子属性不能为空");
+            throw chain.exceptionFactory.newException("被校验的子属性不能为空");
         }
-        return new ValidSubBean<>(this, subParamBean, isLazy());
+        return chain.pooled ? nextPooledSubBean(subParamBean) : new ValidSubBean<>(this, subParamBean);
     }
 
     /**
-     * 指定方法引用返回值需要为空
+     * 转换为校验另一个对象的ValidBean，子属性为空时跳过子属性的所有校验，而不是像map一样抛出异常
      *
-     * @param methodRef 方法引用
+     * @param mapper
+     * @param <ST>
      * @return
      */
-    public ValidBean<T> empty(Function<T, Object> methodRef) {
-        return valid(methodRef, needEmptyValidPair.validFunction, needEmptyValidPair.errorMsg);
+    public <ST> ValidSubBean<ST, T> mapIfPresent(Function<T, ST> mapper) {
+        Objects.requireNonNull(mapper);
+        chain.checkAccess();
+        ST subParamBean = skipped ? null : mapper.apply(bean);
+        if (subParamBean == null) {
+            return new ValidSubBean<>(this, null, true);
+        }
+        return chain.pooled ? nextPooledSubBean(subParamBean) : new ValidSubBean<>(this, subParamBean);
     }
 
     /**
-     * 指定方法引用返回值需要为空
+     * 条件分支：之后的校验只在被校验对象满足条件时执行，通过otherwise切换到不满足条件时的校验，通过parent回到当前对象。
+     * <pre>
+     * ValidBean.of(data)
+     *         .notEmpty(Data::getType)
+     *         .when(d -&gt; d.getType() == 1)
+     *         .map(Data::getParams2).notEmpty(GenericData2::getName, "名字不能为空").parent()
+     *         .otherwise()
+     *         .notEmpty(Data::getBusinessList, "商户列表不能为空")
+     *         .complete();
+     * </pre>
+     * 条件在调用when时立即计算(延迟校验也一样)，不满足时分支中的方法引用与校验函数都不会执行，map也不会获取子属性
      *
-     * @param methodRef      方法引用
-     * @param customErrorMsg 自定义错误信息
+     * @param condition 条件
      * @return
      */
-    public ValidBean<T> empty(Function<T, Object> methodRef, String customErrorMsg) {
-        return valid(methodRef, needEmptyValidPair.validFunction, customErrorMsg);
-    }
-
-    protected boolean isLazy() {
-        return lazyEnable;
+    public ValidSubBean<T, T> when(Predicate<T> condition) {
+        Objects.requireNonNull(condition);
+        chain.checkAccess();
+        boolean matched = !skipped && condition.test(bean);
+
+        ValidSubBean<T, T> whenValidBean = newScope(!matched);
+        whenValidBean.setOtherwiseSkipped(skipped || matched);
+        return whenValidBean;
     }
 
     /**
-     * 指定方法引用返回值不能为空
+     * 分组：之后的校验属于指定的分组，只在通过activeGroups选择了其中一个分组时才执行，通过parent回到当前对象。
+     * 没有分组的校验总是执行；未选择的分组与when的条件不满足一样，方法引用与校验函数都不会执行
+     * <pre>
+     * ValidBean.ofLazy(data)
+     *         .activeGroups(isCreate ? "create" : "update")
+     *         .group("update").notEmpty(Data::getId, "id不能为空").&lt;Data&gt;parent()
+     *         .notEmpty(Data::getBusinessId, "商户id不能为空")
+     *         .complete();
+     * </pre>
      *
-     * @param methodRef 方法引用
+     * @param groups 分组，比如"create"、"update"
      * @return
      */
-    public ValidBean<T> notEmpty(Function<T, Object> methodRef) {
-        return valid(methodRef, needNotEmptyValidPair.validFunction, needNotEmptyValidPair.errorMsg);
+    public ValidSubBean<T, T> group(String... groups) {
+        if (groups.length == 0) {
+            throw new IllegalArgumentException("分组不能为空");
+        }
+        chain.checkAccess();
+        chain.groupDeclared = true;
+
+        boolean active = false;
+        for (String group : groups) {
+            if (chain.activeGroups.contains(group)) {
+                active = true;
+                break;
+            }
+        }
+        return newScope(skipped || !active);
     }
 
     /**
-     * 指定方法引用返回值不能为空
+     * 选择分组，对通过map与parent连接的整条调用链生效。
+     * group在调用时就决定是否跳过，所以需要在声明任何规则与分组之前调用，否则抛出IllegalStateException
      *
-     * @param methodRef      方法引用
-     * @param customErrorMsg 自定义错误信息
+     * @param groups 选择的分组
      * @return
      */
-    public ValidBean<T> notEmpty(Function<T, Object> methodRef, String customErrorMsg) {
-        return valid(methodRef, needNotEmptyValidPair.validFunction, customErrorMsg);
+    public ValidBean<T> activeGroups(String... groups) {
+        if (chain.ruleCount > 0 || chain.groupDeclared) {
+            throw new IllegalStateException("activeGroups需要在声明校验规则与分组之前调用");
+        }
+        chain.activeGroups = new HashSet<>(Arrays.asList(groups));
+        return this;
     }
 
-
     /**
-     * 校验paramBean的指定方法返回值
+     * 切换到when的条件不满足时的校验，该方法只有when返回的ValidSubBean才有用
      *
-     * @param methodRef 被校验的bean的方法引用，通过该函数获取要被校验的值
      * @return
      */
-    public ValidBean<T> valid(Function<T, Object> methodRef) {
-        return valid(methodRef, null, null);
+    public ValidBean<T> otherwise() {
+        throw new ValidatedException("只能在when之后调用otherwise");
     }
 
-
     /**
-     * 校验paramBean的指定方法返回值(使用默认校验函数)
+     * 池化的调用链按map的调用顺序复用之前创建的ValidSubBean
      *
-     * @param methodRef 被校验的bean的方法引用，通过该函数获取要被校验的值
-     * @param errorMsg  自定义错误信息，未通过校验时使用该自定义错误信息(如果为空则使用默认错误信息)
+     * @param subParamBean 被校验的子属性对象
+     * @param <ST>         子属性类型
      * @return
      */
-    public ValidBean<T> valid(Function<T, Object> methodRef, String errorMsg) {
-        return valid(methodRef, null, errorMsg);
-    }
+    @SuppressWarnings("unchecked")
+    private <ST> ValidSubBean<ST, T> nextPooledSubBean(ST subParamBean) {
+        List<ValidSubBean<?, ?>> subBeanList = chain.getSubBeanList();
+        if (chain.subBeanIndex < subBeanList.size()) {
+            ValidSubBean<ST, T> subBean = (ValidSubBean<ST, T>) subBeanList.get(chain.subBeanIndex++);
+            subBean.reset(this, subParamBean);
+            return subBean;
+        }
 
+        ValidSubBean<ST, T> subBean = new ValidSubBean<>(this, subParamBean);
+        subBeanList.add(subBean);
+        chain.subBeanIndex++;
+        return subBean;
+    }
 
     /**
-     * 校验指定方法返回值
+     * 重置为校验另一个对象，复用当前对象与内部的列表，状态与新创建的一样(恢复创建时的校验模式，清除异常工厂、监听器等设置)。
+     * 只能在调用链的根ValidBean上调用
      *
-     * @param methodRef     被校验的bean的方法引用，通过该函数获取要被校验的值
-     * @param validFunction 自定义校验函数，仅校验当前该步骤指定的方法引用返回值，其它valid还是使用全局校验函数进行校验
-     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @param newBean 新的被校验对象
      * @return
      */
-    public <R> ValidBean<T> valid(Function<T, R> methodRef, ValidFunction<R> validFunction, String errorMsg) {
-        Objects.requireNonNull(methodRef);
-
-        //获取被校验的值
-        R validValue = methodRef.apply(bean);
-
-        ValidTriple validTriple = new ValidTriple<R>(validValue, validFunction, errorMsg);
-
-        //添加到待校验列表
-        getValidTripleList().add(validTriple);
-
-        if (!isLazy()) {
-
-            //立即校验
-            immediatelyValid();
+    public ValidBean<T> reset(T newBean) {
+        if (chain.rootValidBean != this) {
+            throw new ValidatedException("只能重置调用链的根ValidBean");
+        }
+        if (newBean == null) {
+            throw new ParamException("参数不能为空");
         }
-        return this;
-    }
-
-
-    /**
-     * 立即执行校验，并抛出错误信息
-     */
-    private <R> void immediatelyValid() {
-
-        //校验值并添加错误信息
-        getValidTripleList().forEach(this::validValueAndAddErrorMsg);
 
-        //如果存在错误信息，则立即抛出异常
-        throwExceptionIfExitsErrorMsg();
+        chain.checkAccess();
+        chain.reset();
+        resetState(newBean);
+        return this;
     }
 
     /**
-     * 默认的错误提示信息
+     * 清除当前ValidBean的错误信息与设置
      *
-     * @return
+     * @param newBean 新的被校验对象，release时为null
      */
-    protected String getDefaultErrorMsg() {
-        return defaultValidPair.errorMsg;
-    }
-
-    protected List<String> getLazyErrorMsgList() {
-        if (lazyErrorMsgList == null) {
-            lazyErrorMsgList = new ArrayList<>();
-        }
-
-        return lazyErrorMsgList;
+    void resetState(T newBean) {
+        this.bean = newBean;
+        this.defaultValidPair = needNotEmptyValidPair;
     }
 
     /**
-     * 如果存在错误信息，则立即抛出异常
+     * 把通过ofPooled、ofLazyPooled获取的调用链放回当前线程的对象池，可以在调用链的任意ValidBean上调用。
+     * release之后不能再使用该调用链中的任何ValidBean；不是池化的调用链调用该方法没有任何作用
      */
-    protected void throwExceptionIfExitsErrorMsg() {
-
-        StringJoiner joiner = new StringJoiner(",");
-
-        //默认错误信息放在开头
-        if (useDefaultErrorMsgEnable) {
-            joiner.add(defaultValidPair.errorMsg);
+    public void release() {
+        if (!chain.pooled) {
+            return;
         }
 
-        List<String> lazyErrorMsgList = getLazyErrorMsgList();
-        if (CollectionUtils.isNotEmpty(lazyErrorMsgList)) {
-            lazyErrorMsgList.forEach(joiner::add);
+        //调试模式下重复release会抛出异常
+        chain.checkAccess();
+        if (chain.released) {
+            return;
         }
 
-        //存在错误信息时抛出异常
-        String allErrorMsg = joiner.toString();
-        if (StringUtils.isNotBlank(allErrorMsg)) {
-            throw new ParamException(allErrorMsg);
+        //不再持有被校验的对象
+        chain.reset();
+        chain.rootValidBean.resetState(null);
+        for (ValidSubBean<?, ?> subBean : chain.getSubBeanList()) {
+            subBean.resetState(null);
         }
-    }
-
-    public void complete() {
-        if (isLazy()) {
 
-            immediatelyValid();
-        }
+        chain.released = true;
+        ValidBeanPool.release(chain.rootValidBean);
     }
 
     /**
-     * ValidBean执行链中是否存在一个及其以上使用默认错误提示信息的
+     * 按照校验计划校验集合中的每个元素，不会为每个元素创建ValidBean。
+     * 错误信息以元素位置开头，比如"[3]商户id不能为空"；集合为null时不校验，需要时使用notEmpty
      *
+     * @param methodRef   获取集合的方法引用
+     * @param elementPlan 元素的校验计划
+     * @param <E>         元素类型
      * @return
      */
-    protected boolean getUseDefaultErrorMsgEnableForChain() {
-        return useDefaultErrorMsgEnable;
+    public <E> ValidBean<T> each(Function<T, ? extends Collection<E>> methodRef, ValidationPlan<? super E> elementPlan) {
+        return each(methodRef, elementPlan, 0);
     }
 
-
     /**
-     * 当前ValidBean是否使用默认错误提示信息
+     * 按照校验计划校验集合中的每个元素，元素个数达到parallelThreshold且支持随机访问的List并行校验，错误信息仍按位置顺序排列
      *
+     * @param methodRef         获取集合的方法引用
+     * @param elementPlan       元素的校验计划
+     * @param parallelThreshold 元素个数达到该值时并行校验，0表示不并行
+     * @param <E>               元素类型
      * @return
      */
-    protected boolean getUseDefaultErrorMsgEnable() {
-        return useDefaultErrorMsgEnable;
-    }
-
-    protected void setValidTripleList(List<ValidTriple<Object>> validTripleList) {
-        this.validTripleList = validTripleList;
+    public <E> ValidBean<T> each(Function<T, ? extends Collection<E>> methodRef, ValidationPlan<? super E> elementPlan,
+                                 int parallelThreshold) {
+        Objects.requireNonNull(methodRef);
+        Objects.requireNonNull(elementPlan);
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("并行校验的元素个数不能小于0");
+        }
+        return validErrors(validBean -> elementPlan.getEachValidErrors(methodRef.apply(validBean), parallelThreshold,
+                chain.getRemainingErrorBudget()));
     }
 
     /**
-     * 获取自身ValidTripleList
+     * 按照校验计划校验Map中的每个value，错误信息以key开头，比如"[k1]商户id不能为空"；Map为null时不校验
      *
+     * @param methodRef 获取Map的方法引用
+     * @param valuePlan value的校验计划
+     * @param <V>       value类型
      * @return
      */
-    public List<ValidTriple<Object>> getValidTripleList() {
-        if (validTripleList == null) {
-            validTripleList = new ArrayList<>();
-        }
-        return validTripleList;
+    public <V> ValidBean<T> eachValue(Function<T, ? extends Map<?, V>> methodRef, ValidationPlan<? super V> valuePlan) {
+        Objects.requireNonNull(methodRef);
+        Objects.requireNonNull(valuePlan);
+        return validErrors(validBean -> valuePlan.getEachValueValidErrors(methodRef.apply(validBean), chain.getRemainingErrorBudget()));
     }
 
     /**
-     * 校验值且记录一下错误信息
+     * 执行直接返回错误列表的校验
      *
-     * @param validTriple 执行校验的数据
+     * @param errorsFunction 校验函数，返回空列表表示通过校验
+     * @return
      */
-    protected <R> void validValueAndAddErrorMsg(ValidTriple<R> validTriple) {
-        Function<R, Boolean> validFunction = validTriple.validFunction;
-        R validValue = validTriple.validValue;
-
-
-        //是否指定校验函数，如果没指定则使用全局校验函数
-        Boolean isPass = (validFunction == null)
-                ? defaultValidPair.validFunction.apply(validValue)  //使用默认的校验函数
-                : validFunction.apply(validValue);  //使用指定的校验函数
-
-        if (isPass == null) {
-            throw new IllegalArgumentException("校验函数返回值不能为null");
+    @SuppressWarnings("unchecked")
+    private ValidBean<T> validErrors(Function<T, List<ValidError>> errorsFunction) {
+        int ruleIndex = nextRuleIndex();
+        if (skipped) {
+            return this;
         }
 
-        //未通过校验则记录错误信息
-        if (!isPass) {
-
-            if (validTriple.validFunction == defaultValidPair.validFunction && defaultValidPair.errorMsg.equals(validTriple.errorMsg)) {
-                //使用默认错误提示
-                addErrorMsg(null);
-            } else {
-                addErrorMsg(validTriple.errorMsg);
+        if (!isLazy()) {
+            long startNanos = isTimingEnabled() ? System.nanoTime() : 0;
+            List<ValidError> validErrors = errorsFunction.apply(bean);
+            notifyRule(ruleIndex, validErrors.isEmpty(), startNanos);
+            if (!validErrors.isEmpty()) {
+                chain.addValidErrors(validErrors);
+                throwExceptionIfExitsErrorMsg();
             }
+            return this;
         }
-    }
 
+        ValidTriple<Object> validTriple = new ValidTriple<>(bean, null, null, null);
+        validTriple.errorsFunction = (Function<Object, List<ValidError>>) (Function<?, List<ValidError>>) errorsFunction;
+        validTriple.ruleIndex = ruleIndex;
+
+        //添加到整条调用链的待校验列表
+        chain.getValidTripleList().add(validTriple);
+        return this;
+    }
 
     /**
-     * 添加错误信息
+     * 指定方法引用返回值需要为空
      *
-     * @param errorMsg 错误提示信息，为空时表示当前ValidBean会使用默认错误信息
+     * @param methodRef 方法引用
+     * @return
      */
-    private void addErrorMsg(String errorMsg) {
-        if (StringUtils.isBlank(errorMsg)) {
-
-            //使用默认错误信息
-            useDefaultErrorMsgEnable = true;
-        } else {
-            List<String> lazyErrorMsgList = getLazyErrorMsgList();
-
-            lazyErrorMsgList.add(errorMsg);
-        }
-    }
-
-    protected void setLazyErrorMsgList(List<String> lazyErrorMsgList) {
-        this.lazyErrorMsgList = lazyErrorMsgList;
+    public ValidBean<T> empty(Function<T, Object> methodRef) {
+        return valid(methodRef, needEmptyValidPair.validFunction, needEmptyValidPair.errorMsg);
     }
 
     /**
-     * 设置全局校验函数和全局错误信息
+     * 指定方法引用返回值需要为空
      *
-     * @param customValidFunction
-     * @param defaultErrorMsg
+     * @param methodRef      方法引用
+     * @param customErrorMsg 自定义错误信息
+     * @return
      */
-    public void setGlobalValidPair(ValidFunction<Object> customValidFunction, String defaultErrorMsg) {
-        this.defaultValidPair = new ValidPair<>(customValidFunction, defaultErrorMsg);
+    public ValidBean<T> empty(Function<T, Object> methodRef, String customErrorMsg) {
+        return valid(methodRef, needEmptyValidPair.validFunction, customErrorMsg);
     }
 
     /**
-     * 设置全局校验函数和全局错误信息
+     * 指定方法引用返回值需要为空，未通过校验时使用错误码与消息模板
      *
-     * @param customValidPair
+     * @param methodRef   方法引用
+     * @param errorCode   错误码
+     * @param msgTemplate 消息模板(MessageFormat格式)，只在获取异常信息时才格式化
+     * @param args        模板参数
+     * @return
      */
-    public void setGlobalValidPair(ValidPair<Object> customValidPair) {
-        Objects.requireNonNull(customValidPair);
-        Objects.requireNonNull(customValidPair.validFunction, "设置的全局校验函数不能为空");
-
-        if (StringUtils.isBlank(customValidPair.errorMsg)) {
-            throw new NullPointerException("设置的全局错误信息不能为空");
-        }
-
-        this.defaultValidPair = customValidPair;
+    public ValidBean<T> empty(Function<T, Object> methodRef, String errorCode, String msgTemplate, Object... args) {
+        return valid(methodRef, needEmptyValidPair.validFunction, errorCode, msgTemplate, args);
     }
 
     /**
-     * 设置校验模式为延迟校验。
+     * 是否延迟校验。所有校验方法都会先调用该方法，调试模式下同时检查池化的ValidBean的使用线程
      *
      * @return
      */
-    public ValidBean<T> lazy() {
-        lazyEnable = true;
-        return this;
+    protected boolean isLazy() {
+        chain.checkAccess();
+        return chain.lazyEnable;
     }
 
     /**
-     * 设置校验模式为立即校验，如果当前存在延迟校验的数据时，则把这些数据都先校验完。
+     * 指定方法引用返回值不能为空
      *
+     * @param methodRef 方法引用
      * @return
      */
-    public ValidBean<T> immediately() {
-        immediatelyValid();
-        lazyEnable = false;
-        return this;
+    public ValidBean<T> notEmpty(Function<T, Object> methodRef) {
+        return valid(methodRef, needNotEmptyValidPair.validFunction, needNotEmptyValidPair.errorMsg);
     }
 
     /**
-     * 创建validBean实例，默认延迟校验，调用complete方法时才会执行校验，不符合校验则抛出异常
+     * 指定方法引用返回值不能为空
      *
-     * @param bean
+     * @param methodRef      方法引用
+     * @param customErrorMsg 自定义错误信息
      * @return
      */
-    public static <P> ValidBean<P> ofLazy(P bean) {
-        return new ValidBean(bean, true);
+    public ValidBean<T> notEmpty(Function<T, Object> methodRef, String customErrorMsg) {
+        return valid(methodRef, needNotEmptyValidPair.validFunction, customErrorMsg);
     }
 
     /**
-     * 创建validBean实例，默认立即校验，每次调用valid方法都会立即校验，如果不符合校验则立即抛出异常
+     * 指定方法引用返回值不能为空，未通过校验时使用错误码与消息模板
      *
-     * @param bean
+     * @param methodRef   方法引用
+     * @param errorCode   错误码
+     * @param msgTemplate 消息模板(MessageFormat格式)，只在获取异常信息时才格式化
+     * @param args        模板参数
      * @return
      */
-    public static <P> ValidBean<P> of(P bean) {
-        return new ValidBean(bean, false);
+    public ValidBean<T> notEmpty(Function<T, Object> methodRef, String errorCode, String msgTemplate, Object... args) {
+        return valid(methodRef, needNotEmptyValidPair.validFunction, errorCode, msgTemplate, args);
+    }
+
+
+    /**
+     * 校验paramBean的指定方法返回值
+     *
+     * @param methodRef 被校验的bean的方法引用，通过该函数获取要被校验的值
+     * @return
+     */
+    public ValidBean<T> valid(Function<T, Object> methodRef) {
+        return valid(methodRef, null, null);
+    }
+
+
+    /**
+     * 校验paramBean的指定方法返回值(使用默认校验函数)
+     *
+     * @param methodRef 被校验的bean的方法引用，通过该函数获取要被校验的值
+     * @param errorMsg  自定义错误信息，未通过校验时使用该自定义错误信息(如果为空则使用默认错误信息)
+     * @return
+     */
+    public ValidBean<T> valid(Function<T, Object> methodRef, String errorMsg) {
+        return valid(methodRef, null, errorMsg);
+    }
+
+
+    /**
+     * 校验指定方法返回值
+     *
+     * @param methodRef     被校验的bean的方法引用，通过该函数获取要被校验的值
+     * @param validFunction 自定义校验函数，仅校验当前该步骤指定的方法引用返回值，其它valid还是使用全局校验函数进行校验
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @return
+     */
+    public <R> ValidBean<T> valid(Function<T, R> methodRef, ValidFunction<R> validFunction, String errorMsg) {
+        return valid(methodRef, validFunction, errorMsg, null);
+    }
+
+    /**
+     * 校验指定方法返回值，未通过校验时使用错误码与消息模板。
+     * 错误对象在声明时创建一次，消息模板只在获取异常信息时才格式化
+     *
+     * @param methodRef     被校验的bean的方法引用，通过该函数获取要被校验的值
+     * @param validFunction 自定义校验函数，为空时使用全局校验函数
+     * @param errorCode     错误码
+     * @param msgTemplate   消息模板(MessageFormat格式)，为空时使用默认错误信息(保留错误码)
+     * @param args          模板参数
+     * @return
+     */
+    public <R> ValidBean<T> valid(Function<T, R> methodRef, ValidFunction<R> validFunction,
+                                  String errorCode, String msgTemplate, Object... args) {
+        //模板为空时与不带错误码的规则一样使用默认错误信息，empty的默认错误信息是"属性需要为空"
+        String defaultErrorMsg = validFunction == needEmptyValidPair.validFunction ? needEmptyValidPair.errorMsg : defaultValidPair.errorMsg;
+        ValidError validError = StringUtils.isBlank(msgTemplate)
+                ? new ValidError(errorCode, defaultErrorMsg)
+                : new ValidError(errorCode, msgTemplate, args);
+        return valid(methodRef, validFunction, null, validError);
+    }
+
+    /**
+     * 校验指定方法返回值
+     *
+     * @param methodRef     被校验的bean的方法引用，通过该函数获取要被校验的值
+     * @param validFunction 校验函数，为空时使用全局校验函数
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @param validError    带错误码的错误，不为空时代替errorMsg
+     * @return
+     */
+    private <R> ValidBean<T> valid(Function<T, R> methodRef, ValidFunction<R> validFunction, String errorMsg, ValidError validError) {
+        Objects.requireNonNull(methodRef);
+        int ruleIndex = nextRuleIndex();
+        if (skipped) {
+            return this;
+        }
+
+        if (!isLazy()) {
+
+            //立即校验：只校验本次的值，不进入待校验列表，保证每条规则只执行一次
+            validValueAndAddErrorMsg(methodRef.apply(bean), validFunction, errorMsg, validError, ruleIndex);
+
+            //如果存在错误信息，则立即抛出异常
+            throwExceptionIfExitsErrorMsg();
+            return this;
+        }
+
+        //延迟校验时只记录方法引用，等到执行校验时才获取被校验的值
+        ValidTriple validTriple = new ValidTriple<R>(bean, methodRef, validFunction, errorMsg);
+        validTriple.validError = validError;
+        validTriple.ruleIndex = ruleIndex;
+
+        //添加到整条调用链的待校验列表
+        chain.getValidTripleList().add(validTriple);
+
+        return this;
+    }
+
+
+    /**
+     * 校验指定方法返回值，适用于耗时的校验函数(比如查询索引文件、调用服务)。
+     * 懒惰执行时通过completeAsync在指定线程池中与其它异步校验同时执行，通过complete执行时与valid相同；立即执行时与valid相同
+     *
+     * @param methodRef     被校验的bean的方法引用，通过该函数获取要被校验的值
+     * @param validFunction 自定义校验函数，为空时使用全局校验函数
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @return
+     */
+    public <R> ValidBean<T> validAsync(Function<T, R> methodRef, ValidFunction<R> validFunction, String errorMsg) {
+        valid(methodRef, validFunction, errorMsg);
+        if (isLazy() && !skipped) {
+            List<ValidTriple<Object>> validTripleList = chain.getValidTripleList();
+            validTripleList.get(validTripleList.size() - 1).async = true;
+        }
+        return this;
+    }
+
+    /**
+     * 校验指定方法返回的int值，获取值与校验过程都不会装箱
+     *
+     * @param methodRef     被校验的bean的方法引用，通过该函数获取要被校验的值
+     * @param validFunction 校验函数，返回true表示通过校验
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @return
+     */
+    public ValidBean<T> validInt(ToIntFunction<T> methodRef, IntPredicate validFunction, String errorMsg) {
+        Objects.requireNonNull(methodRef);
+        Objects.requireNonNull(validFunction);
+        int ruleIndex = nextRuleIndex();
+        if (skipped) {
+            return this;
+        }
+
+        if (!isLazy()) {
+            immediatelyValid(validFunction.test(methodRef.applyAsInt(bean)), errorMsg, ruleIndex);
+            return this;
+        }
+        return validBoolean(validBean -> validFunction.test(methodRef.applyAsInt(validBean)), errorMsg, ruleIndex);
+    }
+
+    /**
+     * 校验指定方法返回的long值，获取值与校验过程都不会装箱
+     *
+     * @param methodRef     被校验的bean的方法引用，通过该函数获取要被校验的值
+     * @param validFunction 校验函数，返回true表示通过校验
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @return
+     */
+    public ValidBean<T> validLong(ToLongFunction<T> methodRef, LongPredicate validFunction, String errorMsg) {
+        Objects.requireNonNull(methodRef);
+        Objects.requireNonNull(validFunction);
+        int ruleIndex = nextRuleIndex();
+        if (skipped) {
+            return this;
+        }
+
+        if (!isLazy()) {
+            immediatelyValid(validFunction.test(methodRef.applyAsLong(bean)), errorMsg, ruleIndex);
+            return this;
+        }
+        return validBoolean(validBean -> validFunction.test(methodRef.applyAsLong(validBean)), errorMsg, ruleIndex);
+    }
+
+    /**
+     * 校验指定方法返回的double值，获取值与校验过程都不会装箱
+     *
+     * @param methodRef     被校验的bean的方法引用，通过该函数获取要被校验的值
+     * @param validFunction 校验函数，返回true表示通过校验
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @return
+     */
+    public ValidBean<T> validDouble(ToDoubleFunction<T> methodRef, DoublePredicate validFunction, String errorMsg) {
+        Objects.requireNonNull(methodRef);
+        Objects.requireNonNull(validFunction);
+        int ruleIndex = nextRuleIndex();
+        if (skipped) {
+            return this;
+        }
+
+        if (!isLazy()) {
+            immediatelyValid(validFunction.test(methodRef.applyAsDouble(bean)), errorMsg, ruleIndex);
+            return this;
+        }
+        return validBoolean(validBean -> validFunction.test(methodRef.applyAsDouble(validBean)), errorMsg, ruleIndex);
+    }
+
+    /**
+     * 校验指定方法返回的boolean值需要为true，也可以是直接校验被校验对象的自定义规则(比如多个属性之间的关系)，校验过程不会装箱
+     *
+     * @param validFunction 返回boolean的方法引用或者自定义校验函数，返回true表示通过校验
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @return
+     */
+    public ValidBean<T> validBoolean(Predicate<T> validFunction, String errorMsg) {
+        Objects.requireNonNull(validFunction);
+        int ruleIndex = nextRuleIndex();
+        if (skipped) {
+            return this;
+        }
+
+        if (!isLazy()) {
+            immediatelyValid(validFunction.test(bean), errorMsg, ruleIndex);
+            return this;
+        }
+        return validBoolean(validFunction, errorMsg, ruleIndex);
+    }
+
+    /**
+     * 添加直接校验被校验对象的延迟校验
+     *
+     * @param validFunction 校验函数
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @param ruleIndex     规则的声明位置
+     * @return
+     */
+    private ValidBean<T> validBoolean(Predicate<T> validFunction, String errorMsg, int ruleIndex) {
+        ValidTriple<Object> validTriple = new ValidTriple<>(bean, validFunction, errorMsg);
+        validTriple.ruleIndex = ruleIndex;
+
+        //添加到整条调用链的待校验列表
+        chain.getValidTripleList().add(validTriple);
+        return this;
+    }
+
+    /**
+     * 立即处理校验结果，未通过校验时立即抛出异常
+     *
+     * @param isPass    是否通过校验
+     * @param errorMsg  未通过校验时的错误信息
+     * @param ruleIndex 规则的声明位置
+     */
+    private void immediatelyValid(boolean isPass, String errorMsg, int ruleIndex) {
+        if (chain.listener != null) {
+            chain.listener.onRule(getRuleId(chain.name, null, ruleIndex), isPass, ValidListener.NO_TIMING);
+        }
+
+        if (!isPass) {
+            addErrorMsg(errorMsg);
+            throwExceptionIfExitsErrorMsg();
+        }
+    }
+
+    /**
+     * 立即执行整条调用链中待校验的数据，并抛出错误信息。
+     * 每条数据只会校验一次
+     */
+    private void immediatelyValid() {
+
+        //校验值并添加错误信息
+        if (chain.hasPendingTriple()) {
+            List<ValidTriple<Object>> validTripleList = chain.getValidTripleList();
+            validTriples(validTripleList, chain.validatedCount);
+            chain.validatedCount = validTripleList.size();
+        }
+
+        //如果存在错误信息，则立即抛出异常
+        throwExceptionIfExitsErrorMsg();
+    }
+
+    /**
+     * 默认的错误提示信息
+     *
+     * @return
+     */
+    protected String getDefaultErrorMsg() {
+        return defaultValidPair.errorMsg;
+    }
+
+    /**
+     * 获取整条调用链已经记录的所有错误，默认错误信息(去重)放在开头
+     *
+     * @return 错误列表，不存在错误时为空列表
+     */
+    protected List<ValidError> getValidErrors() {
+        return chain.getValidErrors();
+    }
+
+    /**
+     * 如果存在错误信息，则立即抛出异常。
+     * 异常只持有错误列表，错误信息在获取时才拼接
+     */
+    protected void throwExceptionIfExitsErrorMsg() {
+        List<ValidError> validErrors = getValidErrors();
+        if (!validErrors.isEmpty()) {
+            throw chain.exceptionFactory.newException(validErrors);
+        }
+    }
+
+    public void complete() {
+        if (!isLazy()) {
+            return;
+        }
+        validAndNotifyComplete(this::immediatelyValid);
+    }
+
+    /**
+     * 并行执行整条调用链中待校验的数据：按估计耗时把待校验数据切分为最多parallelism段，在ForkJoinPool.commonPool()中同时执行，
+     * 每段只记录自己的校验结果，全部完成后按声明顺序记录错误信息，错误信息与complete一致。
+     * 适用于包含耗时的自定义校验函数(比如校验和、复杂的正则)的调用链；估计耗时很小时自动按顺序执行。
+     * <p>
+     * 校验函数与监听器需要是线程安全的；errorBudget在所有校验完成后才生效，不会减少执行的校验
+     *
+     * @param parallelism 最多同时执行的段数，1表示与complete相同
+     */
+    public void complete(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("并行度不能小于1");
+        }
+        if (!isLazy()) {
+            return;
+        }
+        validAndNotifyComplete(() -> parallelValid(parallelism));
+    }
+
+    /**
+     * 执行校验，存在监听器时通知监听器整条调用链的校验结果与耗时
+     *
+     * @param validAction 执行校验的操作，未通过校验时抛出异常
+     */
+    private void validAndNotifyComplete(Runnable validAction) {
+        ValidListener listener = chain.listener;
+        if (listener == null) {
+            validAction.run();
+            return;
+        }
+
+        long startNanos = listener.isTimingEnabled() ? System.nanoTime() : 0;
+        boolean pass = false;
+        try {
+            validAction.run();
+            pass = true;
+        } finally {
+            listener.onComplete(pass, listener.isTimingEnabled() ? System.nanoTime() - startNanos : ValidListener.NO_TIMING);
+        }
+    }
+
+    /**
+     * 并行执行整条调用链中待校验的数据，并抛出错误信息
+     *
+     * @param parallelism 最多同时执行的段数
+     */
+    private void parallelValid(int parallelism) {
+        if (parallelism == 1 || !chain.hasPendingTriple()) {
+            immediatelyValid();
+            return;
+        }
+
+        List<ValidTriple<Object>> validTripleList = chain.getValidTripleList();
+        int fromIndex = chain.validatedCount;
+        int toIndex = validTripleList.size();
+
+        int[] costs = new int[toIndex - fromIndex];
+        long totalCost = 0;
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = getCost(validTripleList.get(fromIndex + i));
+            totalCost += costs[i];
+        }
+        if (totalCost < PARALLEL_COST_THRESHOLD) {
+            immediatelyValid();
+            return;
+        }
+        chain.validatedCount = toIndex;
+
+        //每个位置只由一段写入，join之后按声明顺序读取
+        Runnable[] addErrorMsgActions = new Runnable[costs.length];
+
+        //校验函数抛出的异常记录在所在段的起始位置，ForkJoinTask在其它线程抛出的异常会被重新包装，所以不直接抛出
+        RuntimeException[] ruleExceptions = new RuntimeException[costs.length];
+
+        //按估计耗时切分为连续的段
+        List<ForkJoinTask<?>> taskList = new ArrayList<>(parallelism);
+        long segmentCost = 0;
+        for (int start = 0, i = 0; i < costs.length; i++) {
+            segmentCost += costs[i];
+            if (i == costs.length - 1 || segmentCost * parallelism >= totalCost) {
+                int segmentFrom = start;
+                int segmentTo = i + 1;
+                taskList.add(ForkJoinTask.adapt(() -> {
+                    try {
+                        for (int j = segmentFrom; j < segmentTo; j++) {
+                            addErrorMsgActions[j] = validTripleAndNotify(validTripleList.get(fromIndex + j));
+                        }
+                    } catch (RuntimeException e) {
+                        ruleExceptions[segmentFrom] = e;
+                    }
+                }));
+                start = i + 1;
+                segmentCost = 0;
+            }
+        }
+
+        //当前线程执行第一段，其它段提交到ForkJoinPool
+        ForkJoinTask.invokeAll(taskList);
+
+        //校验函数抛出的异常原样抛出，多段都抛出异常时抛出声明在最前面的
+        for (RuntimeException ruleException : ruleExceptions) {
+            if (ruleException != null) {
+                throw ruleException;
+            }
+        }
+
+        for (int i = 0; i < addErrorMsgActions.length && !isErrorBudgetExhausted(); i++) {
+            if (addErrorMsgActions[i] != null) {
+                addErrorMsgActions[i].run();
+            }
+        }
+
+        //如果存在错误信息，则立即抛出异常
+        throwExceptionIfExitsErrorMsg();
+    }
+
+    /**
+     * 估计校验的耗时：内置的空值校验很快，自定义校验函数与集合元素校验按耗时的处理
+     *
+     * @param validTriple 待校验的数据
+     * @return
+     */
+    private int getCost(ValidTriple<?> validTriple) {
+        if (validTriple.errorsFunction != null || validTriple.predicate != null) {
+            return CUSTOM_RULE_COST;
+        }
+
+        Function<?, Boolean> validFunction = validTriple.validFunction == null
+                ? defaultValidPair.validFunction
+                : validTriple.validFunction;
+        return validFunction == needNotEmptyValidPair.validFunction || validFunction == needEmptyValidPair.validFunction
+                ? BUILT_IN_RULE_COST
+                : CUSTOM_RULE_COST;
+    }
+
+    /**
+     * 异步执行整条调用链中待校验的数据：validAsync声明的校验提交到指定线程池同时执行，其它校验在当前线程依次执行。
+     * 错误信息与complete一致，按声明顺序排列。只依赖CompletableFuture与Executor，也可以传入虚拟线程的线程池
+     * <p>
+     * 返回的CompletableFuture完成之前不要再使用当前调用链
+     *
+     * @param executor 执行异步校验的线程池
+     * @return 校验结果，校验函数抛出异常时异常完成
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<ValidResult<T>> completeAsync(Executor executor) {
+        Objects.requireNonNull(executor);
+        if (!isLazy()) {
+            return CompletableFuture.completedFuture(new ValidResult<>(bean, getValidErrors(), chain.exceptionFactory));
+        }
+
+        ValidListener listener = chain.listener;
+        long startNanos = listener != null && listener.isTimingEnabled() ? System.nanoTime() : 0;
+        if (!chain.hasPendingTriple()) {
+            ValidResult<T> validResult = new ValidResult<>(bean, getValidErrors(), chain.exceptionFactory);
+            notifyComplete(listener, validResult.isPass(), startNanos);
+            return CompletableFuture.completedFuture(validResult);
+        }
+
+        List<ValidTriple<Object>> validTripleList = chain.getValidTripleList();
+        int fromIndex = chain.validatedCount;
+        chain.validatedCount = validTripleList.size();
+
+        CompletableFuture<Runnable>[] futures = new CompletableFuture[validTripleList.size() - fromIndex];
+
+        //先提交异步校验，与之后的同步校验同时执行
+        for (int i = 0; i < futures.length; i++) {
+            ValidTriple<Object> validTriple = validTripleList.get(fromIndex + i);
+            if (validTriple.async) {
+                futures[i] = CompletableFuture.supplyAsync(() -> validTripleAndNotify(validTriple), executor);
+            }
+        }
+
+        for (int i = 0; i < futures.length; i++) {
+            if (futures[i] == null) {
+                futures[i] = new CompletableFuture<>();
+                try {
+                    futures[i].complete(validTripleAndNotify(validTripleList.get(fromIndex + i)));
+                } catch (RuntimeException e) {
+                    futures[i].completeExceptionally(e);
+                }
+            }
+        }
+
+        //全部完成后按声明顺序记录错误信息
+        CompletableFuture<ValidResult<T>> resultFuture = CompletableFuture.allOf(futures).thenApply(ignored -> {
+            for (int i = 0; i < futures.length && !isErrorBudgetExhausted(); i++) {
+                Runnable addErrorMsgAction = futures[i].join();
+                if (addErrorMsgAction != null) {
+                    addErrorMsgAction.run();
+                }
+            }
+            ValidResult<T> validResult = new ValidResult<>(bean, getValidErrors(), chain.exceptionFactory);
+            notifyComplete(listener, validResult.isPass(), startNanos);
+            return validResult;
+        });
+        if (listener == null) {
+            return resultFuture;
+        }
+
+        //校验函数抛出异常时同样通知，与complete一致
+        return resultFuture.whenComplete((validResult, throwable) -> {
+            if (throwable != null) {
+                notifyComplete(listener, false, startNanos);
+            }
+        });
+    }
+
+    /**
+     * 通知监听器一次完整的校验已经结束
+     *
+     * @param listener   监听器，为null时不通知
+     * @param pass       是否通过校验
+     * @param startNanos 开始时间，监听器不计时时忽略
+     */
+    private static void notifyComplete(ValidListener listener, boolean pass, long startNanos) {
+        if (listener != null) {
+            listener.onComplete(pass, listener.isTimingEnabled() ? System.nanoTime() - startNanos : ValidListener.NO_TIMING);
+        }
+    }
+
+    /**
+     * 获取整条调用链的ValidTripleList。
+     * 注意：map与parent连接的ValidBean共用同一个列表，返回的是整条调用链(包括父、子ValidBean)待校验的数据，
+     * 不再只是当前ValidBean自身的数据；立即校验时规则不进入该列表
+     *
+     * @return
+     */
+    public List<ValidTriple<Object>> getValidTripleList() {
+        return chain.getValidTripleList();
+    }
+
+    /**
+     * 依次校验列表中的数据并记录错误信息，错误信息条数达到errorBudget后不再校验剩余的数据
+     *
+     * @param validTripleList 待校验的数据列表
+     * @param fromIndex       从该位置开始校验
+     */
+    protected void validTriples(List<ValidTriple<Object>> validTripleList, int fromIndex) {
+        for (int i = fromIndex, size = validTripleList.size(); i < size && !isErrorBudgetExhausted(); i++) {
+            validValueAndAddErrorMsg(validTripleList.get(i));
+        }
+    }
+
+    /**
+     * 收集到的错误信息条数是否已经达到errorBudget
+     *
+     * @return
+     */
+    protected boolean isErrorBudgetExhausted() {
+        return chain.errorBudget > 0 && chain.getErrorCount() >= chain.errorBudget;
+    }
+
+    /**
+     * 校验值且记录一下错误信息
+     *
+     * @param validTriple 执行校验的数据
+     */
+    protected <R> void validValueAndAddErrorMsg(ValidTriple<R> validTriple) {
+        Runnable addErrorMsgAction = validTripleAndNotify(validTriple);
+        if (addErrorMsgAction != null) {
+            addErrorMsgAction.run();
+        }
+    }
+
+    /**
+     * 校验但不记录错误信息，存在监听器时通知监听器
+     *
+     * @param validTriple 执行校验的数据
+     * @return 记录错误信息的操作，通过校验时为null
+     */
+    private <R> Runnable validTripleAndNotify(ValidTriple<R> validTriple) {
+        ValidListener listener = chain.listener;
+        if (listener == null) {
+            return validTriple(validTriple);
+        }
+
+        long startNanos = listener.isTimingEnabled() ? System.nanoTime() : 0;
+        Runnable addErrorMsgAction = validTriple(validTriple);
+        long elapsedNanos = listener.isTimingEnabled() ? System.nanoTime() - startNanos : ValidListener.NO_TIMING;
+
+        listener.onRule(getRuleId(chain.name, validTriple.validError, validTriple.ruleIndex), addErrorMsgAction == null, elapsedNanos);
+        return addErrorMsgAction;
+    }
+
+    /**
+     * 获取规则在调用链中的声明位置，跳过的规则同样占一个位置，同样的调用代码每次得到的位置都相同
+     *
+     * @return
+     */
+    private int nextRuleIndex() {
+        return chain.ruleCount++;
+    }
+
+    private boolean isTimingEnabled() {
+        return chain.listener != null && chain.listener.isTimingEnabled();
+    }
+
+    /**
+     * 存在监听器时通知一条规则的结果
+     *
+     * @param ruleIndex  规则的声明位置
+     * @param pass       是否通过校验
+     * @param startNanos 开始时间，监听器不计时时忽略
+     */
+    private void notifyRule(int ruleIndex, boolean pass, long startNanos) {
+        ValidListener listener = chain.listener;
+        if (listener != null) {
+            listener.onRule(getRuleId(chain.name, null, ruleIndex), pass,
+                    listener.isTimingEnabled() ? System.nanoTime() - startNanos : ValidListener.NO_TIMING);
+        }
+    }
+
+    /**
+     * 获取通知监听器时的规则标识：指定了错误码时为错误码，否则为"名称#声明位置"，比如"order#3"。
+     * 错误信息不作为标识，默认错误信息相同的规则不会合并，动态的错误信息也不会产生无限多的标识；
+     * 名称区分不同的调用链与校验计划，多个调用链共用一个ValidMetrics时声明位置相同的规则也不会合并
+     *
+     * @param name       调用链或者校验计划的名称
+     * @param validError 带错误码的错误，可以为null
+     * @param ruleIndex  规则的声明位置(调用链或者校验计划中从0开始)
+     * @return
+     */
+    static String getRuleId(String name, ValidError validError, int ruleIndex) {
+        if (validError != null && validError.getErrorCode() != null) {
+            return validError.getErrorCode();
+        }
+        if (ruleIndex >= CACHED_RULE_ID_COUNT) {
+            return name + "#" + ruleIndex;
+        }
+
+        String[] ruleIds = RULE_ID_CACHE.get(name);
+        if (ruleIds == null) {
+            if (RULE_ID_CACHE.size() >= MAX_CACHED_NAME_COUNT) {
+                return name + "#" + ruleIndex;
+            }
+            ruleIds = RULE_ID_CACHE.computeIfAbsent(name, key -> new String[CACHED_RULE_ID_COUNT]);
+        }
+
+        //多个线程同时拼接时结果相同，String不可变，不需要同步
+        String ruleId = ruleIds[ruleIndex];
+        if (ruleId == null) {
+            ruleId = name + "#" + ruleIndex;
+            ruleIds[ruleIndex] = ruleId;
+        }
+        return ruleId;
+    }
+
+    /**
+     * 获取调用校验方法的代码位置，作为没有指定名称时调用链或者校验计划的名称，比如"com.demo.OrderService.create:42"。
+     * 需要获取一次调用栈，只在指定了监听器并且没有指定名称时调用
+     *
+     * @return
+     */
+    static String getCallSite() {
+        String packagePrefix = ValidBean.class.getPackage().getName() + ".";
+        for (StackTraceElement element : new Throwable().getStackTrace()) {
+            if (!element.getClassName().startsWith(packagePrefix)) {
+                return element.getClassName() + "." + element.getMethodName() + ":" + element.getLineNumber();
+            }
+        }
+        return "";
+    }
+
+    /**
+     * 校验但不记录错误信息，可以在其它线程执行
+     *
+     * @param validTriple 执行校验的数据
+     * @return 记录错误信息的操作，通过校验时为null
+     */
+    private <R> Runnable validTriple(ValidTriple<R> validTriple) {
+        if (validTriple.errorsFunction != null) {
+            List<ValidError> validErrors = validTriple.errorsFunction.apply(validTriple.bean);
+            return validErrors.isEmpty() ? null : () -> chain.addValidErrors(validErrors);
+        }
+
+        if (validTriple.predicate != null) {
+
+            //直接校验被校验对象，不会装箱
+            return validTriple.predicate.test(validTriple.bean) ? null : () -> addErrorMsg(validTriple.errorMsg);
+        }
+
+        return isPass(validTriple.getValidValue(), validTriple.validFunction)
+                ? null
+                : () -> addErrorMsg(validTriple.validFunction, validTriple.errorMsg, validTriple.validError);
+    }
+
+    /**
+     * 校验值且记录一下错误信息
+     *
+     * @param validValue    被校验的值
+     * @param validFunction 校验函数，为空时使用全局校验函数
+     * @param errorMsg      未通过校验时的错误信息
+     */
+    protected <R> void validValueAndAddErrorMsg(R validValue, Function<R, Boolean> validFunction, String errorMsg) {
+        validValueAndAddErrorMsg(validValue, validFunction, errorMsg, null);
+    }
+
+    /**
+     * 校验值且记录一下错误信息
+     *
+     * @param validValue    被校验的值
+     * @param validFunction 校验函数，为空时使用全局校验函数
+     * @param errorMsg      未通过校验时的错误信息
+     * @param validError    带错误码的错误，不为空时代替errorMsg
+     */
+    protected <R> void validValueAndAddErrorMsg(R validValue, Function<R, Boolean> validFunction, String errorMsg, ValidError validError) {
+        validValueAndAddErrorMsg(validValue, validFunction, errorMsg, validError, nextRuleIndex());
+    }
+
+    /**
+     * 校验值且记录一下错误信息
+     *
+     * @param validValue    被校验的值
+     * @param validFunction 校验函数，为空时使用全局校验函数
+     * @param errorMsg      未通过校验时的错误信息
+     * @param validError    带错误码的错误，不为空时代替errorMsg
+     * @param ruleIndex     规则的声明位置
+     */
+    private <R> void validValueAndAddErrorMsg(R validValue, Function<R, Boolean> validFunction, String errorMsg,
+                                              ValidError validError, int ruleIndex) {
+        ValidListener listener = chain.listener;
+        boolean isPass;
+        if (listener == null) {
+            isPass = isPass(validValue, validFunction);
+        } else {
+            long startNanos = listener.isTimingEnabled() ? System.nanoTime() : 0;
+            isPass = isPass(validValue, validFunction);
+            long elapsedNanos = listener.isTimingEnabled() ? System.nanoTime() - startNanos : ValidListener.NO_TIMING;
+            listener.onRule(getRuleId(chain.name, validError, ruleIndex), isPass, elapsedNanos);
+        }
+
+        //未通过校验则记录错误信息
+        if (!isPass) {
+            addErrorMsg(validFunction, errorMsg, validError);
+        }
+    }
+
+    /**
+     * 校验值
+     *
+     * @param validValue    被校验的值
+     * @param validFunction 校验函数，为空时使用全局校验函数
+     * @return 是否通过校验
+     */
+    private <R> boolean isPass(R validValue, Function<R, Boolean> validFunction) {
+
+        //是否指定校验函数，如果没指定则使用全局校验函数
+        Boolean isPass = (validFunction == null)
+                ? defaultValidPair.validFunction.apply(validValue)  //使用默认的校验函数
+                : validFunction.apply(validValue);  //使用指定的校验函数
+
+        if (isPass == null) {
+            throw new IllegalArgumentException("校验函数返回值不能为null");
+        }
+        return isPass;
+    }
+
+    /**
+     * 记录未通过校验的错误信息
+     *
+     * @param validFunction 校验函数
+     * @param errorMsg      错误信息
+     * @param validError    带错误码的错误，不为空时代替errorMsg
+     */
+    private <R> void addErrorMsg(Function<R, Boolean> validFunction, String errorMsg, ValidError validError) {
+        if (validError != null) {
+            chain.addValidError(validError);
+        } else if (validFunction == defaultValidPair.validFunction && defaultValidPair.errorMsg.equals(errorMsg)) {
+            //使用默认错误提示
+            addErrorMsg(null);
+        } else {
+            addErrorMsg(errorMsg);
+        }
+    }
+
+
+    /**
+     * 添加错误信息
+     *
+     * @param errorMsg 错误提示信息，为空时表示使用当前ValidBean的默认错误信息
+     */
+    private void addErrorMsg(String errorMsg) {
+        if (StringUtils.isBlank(errorMsg)) {
+
+            //使用默认错误信息，整条调用链只记录一次
+            chain.addDefaultErrorMsg(defaultValidPair.errorMsg);
+        } else {
+
+            //只在校验未通过时才创建错误对象
+            chain.addValidError(new ValidError(null, errorMsg));
+        }
+    }
+
+    /**
+     * 设置全局校验函数和全局错误信息
+     *
+     * @param customValidFunction
+     * @param defaultErrorMsg
+     */
+    public void setGlobalValidPair(ValidFunction<Object> customValidFunction, String defaultErrorMsg) {
+        this.defaultValidPair = new ValidPair<>(customValidFunction, defaultErrorMsg);
+    }
+
+    /**
+     * 设置全局校验函数和全局错误信息
+     *
+     * @param customValidPair
+     */
+    public void setGlobalValidPair(ValidPair<Object> customValidPair) {
+        Objects.requireNonNull(customValidPair);
+        Objects.requireNonNull(customValidPair.validFunction, "设置的全局校验函数不能为空");
+
+        if (StringUtils.isBlank(customValidPair.errorMsg)) {
+            throw new NullPointerException("设置的全局错误信息不能为空");
+        }
+
+        this.defaultValidPair = customValidPair;
+    }
+
+    /**
+     * 设置校验未通过时创建异常的工厂，对通过map与parent连接的整条调用链生效
+     *
+     * @param exceptionFactory 比如不记录堆栈的ValidExceptionFactory.STACKLESS
+     * @return
+     */
+    public ValidBean<T> exceptionFactory(ValidExceptionFactory exceptionFactory) {
+        chain.exceptionFactory = Objects.requireNonNull(exceptionFactory);
+        return this;
+    }
+
+    protected ValidExceptionFactory getExceptionFactory() {
+        return chain.exceptionFactory;
+    }
+
+    /**
+     * 设置校验过程的监听器，对通过map与parent连接的整条调用链生效。
+     * 没有通过name指定名称时以调用该方法的代码位置作为名称，需要获取一次调用栈，高频调用的调用链应指定名称
+     *
+     * @param listener 比如统计每条规则耗时与失败次数的ValidMetrics，为null时不通知
+     * @return
+     */
+    public ValidBean<T> listener(ValidListener listener) {
+        chain.listener = listener;
+        if (listener != null && chain.name == null) {
+            chain.name = getCallSite();
+        }
+        return this;
+    }
+
+    /**
+     * 设置调用链的名称，通知监听器时规则标识为"名称#声明位置"，比如"order#3"，用于区分共用一个ValidMetrics的不同调用链。
+     * 名称应为固定的字符串，同样的名称表示同一条调用链
+     *
+     * @param name 调用链的名称，比如"order"
+     * @return
+     */
+    public ValidBean<T> name(String name) {
+        chain.name = Objects.requireNonNull(name);
+        return this;
+    }
+
+    /**
+     * 延迟校验时遇到第一个未通过的校验就停止，不再执行剩余的校验
+     *
+     * @return
+     */
+    public ValidBean<T> failFast() {
+        return errorBudget(1);
+    }
+
+    /**
+     * 延迟校验时收集到errorBudget条错误信息后就停止，不再执行剩余的校验。对通过map与parent连接的整条调用链生效
+     *
+     * @param errorBudget 最多收集的错误信息条数，0表示不限制
+     * @return
+     */
+    public ValidBean<T> errorBudget(int errorBudget) {
+        if (errorBudget < 0) {
+            throw new IllegalArgumentException("错误信息条数不能小于0");
+        }
+        chain.errorBudget = errorBudget;
+        return this;
+    }
+
+    protected int getErrorBudget() {
+        return chain.errorBudget;
+    }
+
+    /**
+     * 设置校验模式为延迟校验。
+     * 延迟校验时方法引用也会延迟到执行校验时才调用，不会提前获取并持有被校验的值
+     *
+     * @return
+     */
+    public ValidBean<T> lazy() {
+        chain.lazyEnable = true;
+        return this;
+    }
+
+    /**
+     * 设置校验模式为立即校验，如果当前存在延迟校验的数据时，则把这些数据都先校验完。
+     *
+     * @return
+     */
+    public ValidBean<T> immediately() {
+        immediatelyValid();
+        chain.lazyEnable = false;
+        return this;
+    }
+
+    /**
+     * 从当前线程的对象池获取立即校验的ValidBean，复用之前release的ValidBean与内部的列表，使用完后需要调用release。
+     * 只能在当前线程中使用，不能跨线程传递，规则见ValidBeanPool
+     *
+     * @param bean 被校验的对象
+     * @return
+     */
+    public static <P> ValidBean<P> ofPooled(P bean) {
+        return ValidBeanPool.acquire(bean, false);
+    }
+
+    /**
+     * 从当前线程的对象池获取延迟校验的ValidBean，使用完后需要调用release。
+     * 只能在当前线程中使用，不能跨线程传递，规则见ValidBeanPool
+     *
+     * @param bean 被校验的对象
+     * @return
+     */
+    public static <P> ValidBean<P> ofLazyPooled(P bean) {
+        return ValidBeanPool.acquire(bean, true);
+    }
+
+    /**
+     * 创建validBean实例，默认延迟校验，调用complete方法时才会执行校验，不符合校验则抛出异常
+     *
+     * @param bean
+     * @return
+     */
+    public static <P> ValidBean<P> ofLazy(P bean) {
+        return new ValidBean<>(bean, new ValidChain(true));
+    }
+
+    /**
+     * 创建validBean实例，默认立即校验，每次调用valid方法都会立即校验，如果不符合校验则立即抛出异常
+     *
+     * @param bean
+     * @return
+     */
+    public static <P> ValidBean<P> of(P bean) {
+        return new ValidBean<>(bean, new ValidChain(false));
+    }
+
+    /**
+     * 创建按属性路径校验Map的ValidMapBean实例，默认延迟校验，调用complete方法时才会执行校验
+     *
+     * @param map 被校验的Map，比如JSON解析后的Map
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static ValidMapBean ofLazyMap(Map<String, ?> map) {
+        return new ValidMapBean((Map<String, Object>) map, new ValidChain(true));
+    }
+
+    /**
+     * 创建按属性路径校验Map的ValidMapBean实例，默认立即校验
+     *
+     * @param map 被校验的Map，比如JSON解析后的Map
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static ValidMapBean ofMap(Map<String, ?> map) {
+        return new ValidMapBean((Map<String, Object>) map, new ValidChain(false));
     }
 
 
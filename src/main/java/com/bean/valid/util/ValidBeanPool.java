@@ -0,0 +1,81 @@
+package com.bean.valid.util;
+
+import com.bean.valid.exption.ParamException;
+
+import java.util.ArrayDeque;
+
+/**
+ * ValidBean的线程本地对象池，通过ValidBean.ofPooled、ValidBean.ofLazyPooled获取，通过release放回。
+ * 复用ValidBean、map创建的ValidSubBean以及内部的待校验列表与错误列表，高并发下减少每次校验的对象创建。
+ * <pre>
+ * ValidBean&lt;Data&gt; validBean = ValidBean.ofLazyPooled(data);
+ * try {
+ *     validBean.notEmpty(Data::getBusinessId, "商户id不能为空").complete();
+ * } finally {
+ *     validBean.release();
+ * }
+ * </pre>
+ * 使用规则：
+ * <ul>
+ * <li>只能在获取它的线程中使用与release，不能保存到字段或者传递给其它线程(包括completeAsync之后的回调)</li>
+ * <li>release之后不能再使用该调用链中的任何ValidBean，包括map返回的ValidSubBean</li>
+ * <li>校验抛出异常后同样需要release，建议放在finally中；忘记release只是不能复用，不会泄漏</li>
+ * </ul>
+ * 调试模式(-Dbean.valid.pool.debug=true或者setDebugEnable(true))下每次使用都会检查上面的规则，违反时抛出ValidatedException
+ */
+public final class ValidBeanPool {
+
+    /**
+     * 每个线程最多缓存的调用链个数，允许少量嵌套使用
+     */
+    private static final int MAX_POOL_SIZE = 8;
+
+    private static final ThreadLocal<ArrayDeque<ValidBean<?>>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static volatile boolean debugEnable = Boolean.getBoolean("bean.valid.pool.debug");
+
+    private ValidBeanPool() {
+    }
+
+    /**
+     * 开启或者关闭调试模式，只对之后获取的ValidBean生效
+     *
+     * @param debugEnable 是否检查池化的ValidBean的使用线程与release之后的使用
+     */
+    public static void setDebugEnable(boolean debugEnable) {
+        ValidBeanPool.debugEnable = debugEnable;
+    }
+
+    public static boolean isDebugEnable() {
+        return debugEnable;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <P> ValidBean<P> acquire(P bean, boolean lazyEnable) {
+        if (bean == null) {
+            throw new ParamException("参数不能为空");
+        }
+
+        ValidBean<P> validBean = (ValidBean<P>) POOL.get().pollFirst();
+        if (validBean == null) {
+            ValidChain chain = new ValidChain(lazyEnable);
+            chain.pooled = true;
+            validBean = new ValidBean<>(bean, chain);
+            chain.ownerThread = debugEnable ? Thread.currentThread() : null;
+            return validBean;
+        }
+
+        ValidChain chain = validBean.getChain();
+        chain.released = false;
+        chain.ownerThread = debugEnable ? Thread.currentThread() : null;
+        chain.initialLazyEnable = lazyEnable;
+        return validBean.reset(bean);
+    }
+
+    static void release(ValidBean<?> rootValidBean) {
+        ArrayDeque<ValidBean<?>> pool = POOL.get();
+        if (pool.size() < MAX_POOL_SIZE) {
+            pool.push(rootValidBean);
+        }
+    }
+}
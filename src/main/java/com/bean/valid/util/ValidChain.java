@@ -0,0 +1,268 @@
+package com.bean.valid.util;
+
+import com.bean.valid.exption.ValidError;
+import com.bean.valid.exption.ValidatedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一条ValidBean调用链共享的状态。
+ * <p>
+ * 通过map与parent连接起来的ValidBean与ValidSubBean共用同一个ValidChain，
+ * 所有延迟校验的数据都按声明顺序追加到同一个列表中，complete时只需要顺序执行一遍
+ */
+class ValidChain {
+
+    /**
+     * 是否延迟校验
+     */
+    boolean lazyEnable;
+
+    /**
+     * 创建时的校验模式，reset时恢复
+     */
+    boolean initialLazyEnable;
+
+    /**
+     * 调用链的根ValidBean
+     */
+    ValidBean<?> rootValidBean;
+
+    /**
+     * 整条调用链待校验的数据列表，只追加不删除
+     */
+    private List<ValidBean.ValidTriple<Object>> validTripleList;
+
+    /**
+     * validTripleList中已经执行过校验的数据个数，之后的数据才是待校验的
+     */
+    int validatedCount;
+
+    /**
+     * 已经声明的规则个数，用于给每条规则分配通知监听器时的规则标识
+     */
+    int ruleCount;
+
+    /**
+     * 整条调用链的默认错误，添加时去重，按第一次出现的顺序排列。
+     * 每个ValidBean可以通过setGlobalValidPair设置不同的默认错误信息，通常只有一个
+     */
+    private List<ValidError> defaultValidErrorList;
+
+    /**
+     * 整条调用链的自定义错误，按记录的顺序排列
+     */
+    private List<ValidError> validErrorList;
+
+    /**
+     * 校验未通过时创建异常的工厂
+     */
+    ValidExceptionFactory exceptionFactory = ValidExceptionFactory.FULL_STACK_TRACE;
+
+    /**
+     * 延迟校验时最多收集的错误信息条数，达到后不再执行剩余的校验。0表示不限制
+     */
+    int errorBudget;
+
+    /**
+     * 校验过程的监听器，为null时不通知
+     */
+    ValidListener listener;
+
+    /**
+     * 调用链的名称，用于通知监听器时的规则标识，指定了监听器时不为null
+     */
+    String name;
+
+    /**
+     * 选择的分组，group中的规则只在选择了其中一个分组时才执行
+     */
+    Set<String> activeGroups = Collections.emptySet();
+
+    /**
+     * 是否已经声明了分组，声明分组时就根据activeGroups决定是否跳过，之后不能再修改activeGroups
+     */
+    boolean groupDeclared;
+
+    /**
+     * 是否是对象池中的调用链，是时map创建的ValidSubBean会记录下来，reset后按顺序复用
+     */
+    boolean pooled;
+
+    /**
+     * 池化的调用链中map创建过的ValidSubBean
+     */
+    private List<ValidSubBean<?, ?>> subBeanList;
+
+    /**
+     * 本次使用中已经复用的ValidSubBean个数
+     */
+    int subBeanIndex;
+
+    /**
+     * 是否已经放回对象池
+     */
+    boolean released;
+
+    /**
+     * 调试模式下获取该调用链的线程，不为null时每次使用都会检查使用线程以及是否已经放回对象池
+     */
+    Thread ownerThread;
+
+    ValidChain(boolean lazyEnable) {
+        this.lazyEnable = lazyEnable;
+        this.initialLazyEnable = lazyEnable;
+    }
+
+    List<ValidSubBean<?, ?>> getSubBeanList() {
+        if (subBeanList == null) {
+            subBeanList = new ArrayList<>();
+        }
+        return subBeanList;
+    }
+
+    /**
+     * 恢复为刚创建时的状态，保留已经创建的列表与ValidSubBean以便复用
+     */
+    void reset() {
+        lazyEnable = initialLazyEnable;
+        if (validTripleList != null) {
+            validTripleList.clear();
+        }
+        validatedCount = 0;
+        ruleCount = 0;
+        if (defaultValidErrorList != null) {
+            defaultValidErrorList.clear();
+        }
+        if (validErrorList != null) {
+            validErrorList.clear();
+        }
+        exceptionFactory = ValidExceptionFactory.FULL_STACK_TRACE;
+        errorBudget = 0;
+        listener = null;
+        name = null;
+        activeGroups = Collections.emptySet();
+        groupDeclared = false;
+        subBeanIndex = 0;
+    }
+
+    /**
+     * 调试模式下检查池化的调用链是否在获取它的线程中使用、是否已经放回对象池，非调试模式下只有一次null判断
+     */
+    void checkAccess() {
+        if (ownerThread != null) {
+            if (released) {
+                throw new ValidatedException("ValidBean已经release，不能继续使用");
+            }
+            if (ownerThread != Thread.currentThread()) {
+                throw new ValidatedException("池化的ValidBean只能在获取它的线程中使用，获取线程：" + ownerThread.getName());
+            }
+        }
+    }
+
+    List<ValidBean.ValidTriple<Object>> getValidTripleList() {
+        if (validTripleList == null) {
+            validTripleList = new ArrayList<>();
+        }
+        return validTripleList;
+    }
+
+    /**
+     * 记录使用默认错误信息的错误，同样的默认错误信息只记录一次
+     *
+     * @param defaultErrorMsg 默认错误信息
+     */
+    void addDefaultErrorMsg(String defaultErrorMsg) {
+        if (defaultValidErrorList == null) {
+            defaultValidErrorList = new ArrayList<>(1);
+        }
+        for (ValidError defaultValidError : defaultValidErrorList) {
+            if (defaultValidError.getMsgTemplate().equals(defaultErrorMsg)) {
+                return;
+            }
+        }
+        defaultValidErrorList.add(new ValidError(null, defaultErrorMsg));
+    }
+
+    /**
+     * 记录自定义错误
+     *
+     * @param validError 错误
+     */
+    void addValidError(ValidError validError) {
+        getValidErrorList().add(validError);
+    }
+
+    /**
+     * 记录多个自定义错误，比如each中元素的错误，最多记录到errorBudget条
+     *
+     * @param validErrors 错误列表
+     */
+    void addValidErrors(List<ValidError> validErrors) {
+        if (errorBudget > 0) {
+            int remainingCount = errorBudget - getErrorCount();
+            if (remainingCount <= 0) {
+                return;
+            }
+            if (validErrors.size() > remainingCount) {
+                validErrors = validErrors.subList(0, remainingCount);
+            }
+        }
+        getValidErrorList().addAll(validErrors);
+    }
+
+    /**
+     * 获取还能记录的错误条数，用于each等一次产生多个错误的校验提前停止
+     *
+     * @return 0表示不限制；已经达到限制时为1，多出的错误由addValidErrors去掉
+     */
+    int getRemainingErrorBudget() {
+        return errorBudget > 0 ? Math.max(1, errorBudget - getErrorCount()) : 0;
+    }
+
+    private List<ValidError> getValidErrorList() {
+        if (validErrorList == null) {
+            validErrorList = new ArrayList<>();
+        }
+        return validErrorList;
+    }
+
+    /**
+     * @return 已经记录的错误条数，同样的默认错误信息只算一条
+     */
+    int getErrorCount() {
+        return (defaultValidErrorList == null ? 0 : defaultValidErrorList.size())
+                + (validErrorList == null ? 0 : validErrorList.size());
+    }
+
+    /**
+     * 获取整条调用链已经记录的所有错误，默认错误在开头，之后是按记录顺序排列的自定义错误
+     *
+     * @return 新的错误列表，之后记录的错误不会影响返回的列表；不存在错误时为空列表
+     */
+    List<ValidError> getValidErrors() {
+        int errorCount = getErrorCount();
+        if (errorCount == 0) {
+            return Collections.emptyList();
+        }
+
+        List<ValidError> validErrors = new ArrayList<>(errorCount);
+        if (defaultValidErrorList != null) {
+            validErrors.addAll(defaultValidErrorList);
+        }
+        if (validErrorList != null) {
+            validErrors.addAll(validErrorList);
+        }
+        return validErrors;
+    }
+
+    /**
+     * @return 是否存在待校验的数据
+     */
+    boolean hasPendingTriple() {
+        return validTripleList != null && validatedCount < validTripleList.size();
+    }
+}
@@ -0,0 +1,88 @@
+package com.bean.valid.util;
+
+import com.bean.valid.exption.CustomRuntimeException;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidError;
+
+import java.util.List;
+
+/**
+ * 校验未通过时创建异常的工厂，通过ValidBean的exceptionFactory方法指定
+ */
+@FunctionalInterface
+public interface ValidExceptionFactory {
+
+    /**
+     * 记录完整堆栈的ParamException，默认使用，方便调试
+     */
+    ValidExceptionFactory FULL_STACK_TRACE = new ValidExceptionFactory() {
+        @Override
+        public CustomRuntimeException newException(String errorMsg) {
+            return new ParamException(errorMsg);
+        }
+
+        @Override
+        public CustomRuntimeException newException(List<ValidError> validErrors) {
+            return new ParamException(validErrors, true);
+        }
+    };
+
+    /**
+     * 不记录堆栈的ParamException，大量请求校验失败时(比如空参数的刷接口流量)可以省去大部分创建异常的开销
+     */
+    ValidExceptionFactory STACKLESS = new ValidExceptionFactory() {
+        @Override
+        public CustomRuntimeException newException(String errorMsg) {
+            return new ParamException(errorMsg, false);
+        }
+
+        @Override
+        public CustomRuntimeException newException(List<ValidError> validErrors) {
+            return new ParamException(validErrors, false);
+        }
+    };
+
+    /**
+     * 创建异常
+     *
+     * @param errorMsg 所有错误信息拼接后的字符串
+     * @return 抛出的异常，继承CustomRuntimeException以便拦截器拦截
+     */
+    CustomRuntimeException newException(String errorMsg);
+
+    /**
+     * 由校验错误列表创建异常，默认渲染并拼接所有错误信息后调用newException(String)。
+     * 内置的工厂会创建延迟渲染错误信息的ParamException，可以通过getValidErrors获取错误码
+     *
+     * @param validErrors 校验错误列表
+     * @return 抛出的异常，继承CustomRuntimeException以便拦截器拦截
+     */
+    default CustomRuntimeException newException(List<ValidError> validErrors) {
+        return newException(ValidError.joinErrorMsg(validErrors));
+    }
+
+    /**
+     * 始终抛出同一个预先创建好的、不记录堆栈的ParamException，忽略具体的错误信息。
+     * 适用于错误信息固定、不关心具体哪个属性未通过校验的场景，校验失败时不会创建任何对象
+     *
+     * @param errorMsg 固定的错误信息
+     * @return
+     */
+    static ValidExceptionFactory preallocated(String errorMsg) {
+        ParamException paramException = new ParamException(errorMsg, false);
+        return new ValidExceptionFactory() {
+            @Override
+            public CustomRuntimeException newException(String allErrorMsg) {
+                return paramException;
+            }
+
+            /**
+             * 不渲染错误信息，直接返回预先创建好的异常
+             */
+            @Override
+            public CustomRuntimeException newException(List<ValidError> validErrors) {
+                return paramException;
+            }
+        };
+    }
+}
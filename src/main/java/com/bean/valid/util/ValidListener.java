@@ -0,0 +1,42 @@
+package com.bean.valid.util;
+
+/**
+ * 校验过程的监听器，用于统计每条规则的耗时与失败次数，通过ValidBean或者ValidationPlan.Builder的listener方法指定。
+ * 内置的实现是无锁的ValidMetrics。没有指定监听器时校验过程不会有任何额外的开销
+ * <p>
+ * 规则标识：指定了错误码时为错误码，否则为"名称#声明位置"，比如"order#3"。名称通过ValidBean或者ValidationPlan.Builder的name方法指定，
+ * 没有指定时为调用listener方法的代码位置；声明位置为规则在调用链或者校验计划中从0开始的位置，跳过的规则同样占一个位置。
+ * 错误信息不作为规则标识，同样的调用代码每次得到的规则标识都相同，共用一个监听器的不同调用链的规则也不会合并
+ */
+public interface ValidListener {
+
+    /**
+     * 不计时或者无法计时时的耗时
+     */
+    long NO_TIMING = -1;
+
+    /**
+     * 执行完一条规则后调用，会在执行校验的线程中调用，需要是线程安全的
+     *
+     * @param ruleId       规则标识
+     * @param pass         是否通过校验
+     * @param elapsedNanos 耗时(纳秒)，不计时时为NO_TIMING
+     */
+    void onRule(String ruleId, boolean pass, long elapsedNanos);
+
+    /**
+     * 执行完一次完整的校验后调用(ValidBean的complete、ValidationPlan的valid等)
+     *
+     * @param pass         是否通过校验，校验函数抛出异常时为false
+     * @param elapsedNanos 耗时(纳秒)，不计时时为NO_TIMING
+     */
+    default void onComplete(boolean pass, long elapsedNanos) {
+    }
+
+    /**
+     * @return 是否需要计时，不需要时可以省去调用System.nanoTime的开销
+     */
+    default boolean isTimingEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,269 @@
+package com.bean.valid.util;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * 按属性路径校验Map与List组成的对象(比如JSON解析后的Map)，不需要先转换为JavaBean。
+ * 空值判断、自定义校验函数与错误信息与ValidBean一致，路径中间任意一级不存在时被校验的值为null
+ * <pre>
+ * ValidBean.ofLazyMap(params)
+ *         .notEmpty("businessId", "商户id不能为空")
+ *         .notEmpty("params1.endDate", "结束时间不能为空")
+ *         .valid("items[0].count", count -> count instanceof Integer, "数量错误")
+ *         .complete();
+ * </pre>
+ */
+public class ValidMapBean extends ValidBean<Map<String, Object>> {
+
+    ValidMapBean(Map<String, Object> bean, ValidChain chain) {
+        super(bean, chain);
+    }
+
+    @Override
+    ValidSubBean<Map<String, Object>, Map<String, Object>> newScope(boolean scopeSkipped) {
+        return new ValidMapSubBean<>(this, getBean(), scopeSkipped);
+    }
+
+    /**
+     * 条件分支，分支中可以继续按属性路径校验，通过parentMap回到当前对象，规则与ValidBean的when一致
+     *
+     * @param condition 条件
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValidMapSubBean<ValidMapBean> when(Predicate<Map<String, Object>> condition) {
+        return (ValidMapSubBean<ValidMapBean>) super.when(condition);
+    }
+
+    /**
+     * 分组，分组中可以继续按属性路径校验，通过parentMap回到当前对象，规则与ValidBean的group一致
+     *
+     * @param groups 分组
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValidMapSubBean<ValidMapBean> group(String... groups) {
+        return (ValidMapSubBean<ValidMapBean>) super.group(groups);
+    }
+
+    /**
+     * 按属性路径获取子Map进行校验，值不是Map(包括不存在)时跳过子Map的所有校验，通过parentMap回到当前对象
+     *
+     * @param path 属性路径，比如"params1"
+     * @return
+     */
+    public ValidMapSubBean<ValidMapBean> mapIfPresent(String path) {
+        return ValidMapSubBean.mapIfPresent(this, path);
+    }
+
+    /**
+     * 指定属性路径的值需要为空
+     *
+     * @param path 属性路径，比如"params1.endDate"
+     * @return
+     */
+    public ValidMapBean empty(String path) {
+        empty(PropertyPath.of(path).asFunction());
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值需要为空
+     *
+     * @param path           属性路径
+     * @param customErrorMsg 自定义错误信息
+     * @return
+     */
+    public ValidMapBean empty(String path, String customErrorMsg) {
+        empty(PropertyPath.of(path).asFunction(), customErrorMsg);
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值需要为空，未通过校验时使用错误码与消息模板
+     *
+     * @param path        属性路径
+     * @param errorCode   错误码
+     * @param msgTemplate 消息模板(MessageFormat格式)，只在获取异常信息时才格式化
+     * @param args        模板参数
+     * @return
+     */
+    public ValidMapBean empty(String path, String errorCode, String msgTemplate, Object... args) {
+        empty(PropertyPath.of(path).asFunction(), errorCode, msgTemplate, args);
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值不能为空
+     *
+     * @param path 属性路径，比如"params1.endDate"
+     * @return
+     */
+    public ValidMapBean notEmpty(String path) {
+        notEmpty(PropertyPath.of(path).asFunction());
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值不能为空
+     *
+     * @param path           属性路径
+     * @param customErrorMsg 自定义错误信息
+     * @return
+     */
+    public ValidMapBean notEmpty(String path, String customErrorMsg) {
+        notEmpty(PropertyPath.of(path).asFunction(), customErrorMsg);
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值不能为空，未通过校验时使用错误码与消息模板
+     *
+     * @param path        属性路径
+     * @param errorCode   错误码
+     * @param msgTemplate 消息模板(MessageFormat格式)，只在获取异常信息时才格式化
+     * @param args        模板参数
+     * @return
+     */
+    public ValidMapBean notEmpty(String path, String errorCode, String msgTemplate, Object... args) {
+        notEmpty(PropertyPath.of(path).asFunction(), errorCode, msgTemplate, args);
+        return this;
+    }
+
+    /**
+     * 校验指定属性路径的值
+     *
+     * @param path          属性路径
+     * @param validFunction 自定义校验函数，为空时使用全局校验函数
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @return
+     */
+    public ValidMapBean valid(String path, ValidFunction<Object> validFunction, String errorMsg) {
+        valid(PropertyPath.of(path).asFunction(), validFunction, errorMsg);
+        return this;
+    }
+
+    /**
+     * 校验指定属性路径的值，未通过校验时使用错误码与消息模板
+     *
+     * @param path          属性路径
+     * @param validFunction 自定义校验函数，为空时使用全局校验函数
+     * @param errorCode     错误码
+     * @param msgTemplate   消息模板(MessageFormat格式)，只在获取异常信息时才格式化
+     * @param args          模板参数
+     * @return
+     */
+    public ValidMapBean valid(String path, ValidFunction<Object> validFunction,
+                              String errorCode, String msgTemplate, Object... args) {
+        valid(PropertyPath.of(path).asFunction(), validFunction, errorCode, msgTemplate, args);
+        return this;
+    }
+
+    /**
+     * 设置校验模式为延迟校验，返回ValidMapBean以便继续使用属性路径
+     *
+     * @return
+     */
+    @Override
+    public ValidMapBean lazy() {
+        super.lazy();
+        return this;
+    }
+
+    /**
+     * 设置校验模式为立即校验，如果当前存在延迟校验的数据时，则把这些数据都先校验完
+     *
+     * @return
+     */
+    @Override
+    public ValidMapBean immediately() {
+        super.immediately();
+        return this;
+    }
+
+    /**
+     * 延迟校验时遇到第一个未通过的校验就停止，不再执行剩余的校验
+     *
+     * @return
+     */
+    @Override
+    public ValidMapBean failFast() {
+        super.failFast();
+        return this;
+    }
+
+    /**
+     * 延迟校验时收集到errorBudget条错误信息后就停止，不再执行剩余的校验
+     *
+     * @param errorBudget 最多收集的错误信息条数，0表示不限制
+     * @return
+     */
+    @Override
+    public ValidMapBean errorBudget(int errorBudget) {
+        super.errorBudget(errorBudget);
+        return this;
+    }
+
+    /**
+     * 设置校验未通过时创建异常的工厂
+     *
+     * @param exceptionFactory 比如不记录堆栈的ValidExceptionFactory.STACKLESS
+     * @return
+     */
+    @Override
+    public ValidMapBean exceptionFactory(ValidExceptionFactory exceptionFactory) {
+        super.exceptionFactory(exceptionFactory);
+        return this;
+    }
+
+    /**
+     * 设置校验过程的监听器
+     *
+     * @param listener 比如统计每条规则耗时与失败次数的ValidMetrics，为null时不通知
+     * @return
+     */
+    @Override
+    public ValidMapBean listener(ValidListener listener) {
+        super.listener(listener);
+        return this;
+    }
+
+    /**
+     * 设置调用链的名称，用于通知监听器时的规则标识
+     *
+     * @param name 调用链的名称，比如"order"
+     * @return
+     */
+    @Override
+    public ValidMapBean name(String name) {
+        super.name(name);
+        return this;
+    }
+
+    /**
+     * 选择分组，需要在group之前调用
+     *
+     * @param groups 选择的分组
+     * @return
+     */
+    @Override
+    public ValidMapBean activeGroups(String... groups) {
+        super.activeGroups(groups);
+        return this;
+    }
+
+    /**
+     * 重置为校验另一个Map，复用当前对象与内部的列表
+     *
+     * @param newBean 新的被校验Map
+     * @return
+     */
+    @Override
+    public ValidMapBean reset(Map<String, Object> newBean) {
+        super.reset(newBean);
+        return this;
+    }
+}
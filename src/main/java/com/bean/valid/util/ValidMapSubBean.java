@@ -0,0 +1,213 @@
+package com.bean.valid.util;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * ValidMapBean的when、otherwise、group、mapIfPresent创建的作用域，作用域中同样可以按属性路径校验。
+ * 通过parentMap回到可以按属性路径校验的父ValidBean(parent返回的是普通的ValidBean)
+ * <pre>
+ * ValidBean.ofLazyMap(params)
+ *         .when(map -&gt; "company".equals(map.get("type")))
+ *         .notEmpty("company.name", "公司名称不能为空")
+ *         .otherwise()
+ *         .notEmpty("person.name", "姓名不能为空")
+ *         .parentMap()
+ *         .notEmpty("businessId", "商户id不能为空")
+ *         .complete();
+ * </pre>
+ *
+ * @param <P> 父ValidBean的类型，ValidMapBean或者ValidMapSubBean
+ */
+public class ValidMapSubBean<P extends ValidBean<Map<String, Object>>> extends ValidSubBean<Map<String, Object>, Map<String, Object>> {
+
+    ValidMapSubBean(P parentValidBean, Map<String, Object> bean, boolean skipped) {
+        super(parentValidBean, bean, skipped);
+    }
+
+    /**
+     * 按属性路径获取子Map并创建作用域，值不是Map(包括不存在)时跳过作用域中的所有校验
+     *
+     * @param parentValidBean 父ValidBean
+     * @param path            属性路径
+     * @param <P>             父ValidBean的类型
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    static <P extends ValidBean<Map<String, Object>>> ValidMapSubBean<P> mapIfPresent(P parentValidBean, String path) {
+        PropertyPath propertyPath = PropertyPath.of(path);
+        parentValidBean.getChain().checkAccess();
+        Object value = parentValidBean.isSkipped() ? null : propertyPath.apply(parentValidBean.getBean());
+        return value instanceof Map
+                ? new ValidMapSubBean<>(parentValidBean, (Map<String, Object>) value, false)
+                : new ValidMapSubBean<>(parentValidBean, null, true);
+    }
+
+    @Override
+    ValidSubBean<Map<String, Object>, Map<String, Object>> newScope(boolean scopeSkipped) {
+        return new ValidMapSubBean<>(this, getBean(), scopeSkipped);
+    }
+
+    @Override
+    ValidSubBean<Map<String, Object>, Map<String, Object>> newOtherwiseScope(boolean scopeSkipped) {
+        return new ValidMapSubBean<>(parentMap(), getBean(), scopeSkipped);
+    }
+
+    /**
+     * 回到父ValidBean，与parent相同，但返回的父ValidBean可以继续按属性路径校验
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public P parentMap() {
+        return (P) this.<Map<String, Object>>parent();
+    }
+
+    /**
+     * 条件分支，作用域中可以继续按属性路径校验，规则与ValidBean的when一致
+     *
+     * @param condition 条件
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValidMapSubBean<ValidMapSubBean<P>> when(Predicate<Map<String, Object>> condition) {
+        return (ValidMapSubBean<ValidMapSubBean<P>>) super.when(condition);
+    }
+
+    /**
+     * 切换到when的条件不满足时的校验，只能在when返回的作用域上调用
+     *
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValidMapSubBean<P> otherwise() {
+        return (ValidMapSubBean<P>) super.otherwise();
+    }
+
+    /**
+     * 分组，作用域中可以继续按属性路径校验，规则与ValidBean的group一致
+     *
+     * @param groups 分组
+     * @return
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValidMapSubBean<ValidMapSubBean<P>> group(String... groups) {
+        return (ValidMapSubBean<ValidMapSubBean<P>>) super.group(groups);
+    }
+
+    /**
+     * 按属性路径获取子Map进行校验，值不是Map(包括不存在)时跳过子Map的所有校验
+     *
+     * @param path 属性路径
+     * @return
+     */
+    public ValidMapSubBean<ValidMapSubBean<P>> mapIfPresent(String path) {
+        return mapIfPresent(this, path);
+    }
+
+    /**
+     * 指定属性路径的值需要为空
+     *
+     * @param path 属性路径，比如"params1.endDate"
+     * @return
+     */
+    public ValidMapSubBean<P> empty(String path) {
+        empty(PropertyPath.of(path).asFunction());
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值需要为空
+     *
+     * @param path           属性路径
+     * @param customErrorMsg 自定义错误信息
+     * @return
+     */
+    public ValidMapSubBean<P> empty(String path, String customErrorMsg) {
+        empty(PropertyPath.of(path).asFunction(), customErrorMsg);
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值需要为空，未通过校验时使用错误码与消息模板
+     *
+     * @param path        属性路径
+     * @param errorCode   错误码
+     * @param msgTemplate 消息模板(MessageFormat格式)，只在获取异常信息时才格式化
+     * @param args        模板参数
+     * @return
+     */
+    public ValidMapSubBean<P> empty(String path, String errorCode, String msgTemplate, Object... args) {
+        empty(PropertyPath.of(path).asFunction(), errorCode, msgTemplate, args);
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值不能为空
+     *
+     * @param path 属性路径，比如"params1.endDate"
+     * @return
+     */
+    public ValidMapSubBean<P> notEmpty(String path) {
+        notEmpty(PropertyPath.of(path).asFunction());
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值不能为空
+     *
+     * @param path           属性路径
+     * @param customErrorMsg 自定义错误信息
+     * @return
+     */
+    public ValidMapSubBean<P> notEmpty(String path, String customErrorMsg) {
+        notEmpty(PropertyPath.of(path).asFunction(), customErrorMsg);
+        return this;
+    }
+
+    /**
+     * 指定属性路径的值不能为空，未通过校验时使用错误码与消息模板
+     *
+     * @param path        属性路径
+     * @param errorCode   错误码
+     * @param msgTemplate 消息模板(MessageFormat格式)，只在获取异常信息时才格式化
+     * @param args        模板参数
+     * @return
+     */
+    public ValidMapSubBean<P> notEmpty(String path, String errorCode, String msgTemplate, Object... args) {
+        notEmpty(PropertyPath.of(path).asFunction(), errorCode, msgTemplate, args);
+        return this;
+    }
+
+    /**
+     * 校验指定属性路径的值
+     *
+     * @param path          属性路径
+     * @param validFunction 自定义校验函数，为空时使用全局校验函数
+     * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+     * @return
+     */
+    public ValidMapSubBean<P> valid(String path, ValidFunction<Object> validFunction, String errorMsg) {
+        valid(PropertyPath.of(path).asFunction(), validFunction, errorMsg);
+        return this;
+    }
+
+    /**
+     * 校验指定属性路径的值，未通过校验时使用错误码与消息模板
+     *
+     * @param path          属性路径
+     * @param validFunction 自定义校验函数，为空时使用全局校验函数
+     * @param errorCode     错误码
+     * @param msgTemplate   消息模板(MessageFormat格式)，只在获取异常信息时才格式化
+     * @param args          模板参数
+     * @return
+     */
+    public ValidMapSubBean<P> valid(String path, ValidFunction<Object> validFunction,
+                                    String errorCode, String msgTemplate, Object... args) {
+        valid(PropertyPath.of(path).asFunction(), validFunction, errorCode, msgTemplate, args);
+        return this;
+    }
+}
@@ -0,0 +1,171 @@
+package com.bean.valid.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内置的无锁统计监听器：每条规则的通过次数、失败次数、总耗时与耗时分布，以及完整校验的次数。
+ * 计数都使用LongAdder，多线程同时校验时不会互相竞争；可以定时读取后导出到监控系统
+ * <pre>
+ * private static final ValidMetrics METRICS = new ValidMetrics();
+ *
+ * ValidBean.ofLazy(data).listener(METRICS)...complete();
+ * METRICS.getRuleMetrics().forEach((ruleId, ruleMetrics) -&gt; ...);
+ * </pre>
+ */
+public final class ValidMetrics implements ValidListener {
+
+    /**
+     * 耗时分布的桶个数，第i个桶统计耗时在[2^(i-1), 2^i)纳秒的次数，最后一个桶统计更大的耗时
+     */
+    public static final int LATENCY_BUCKET_COUNT = 40;
+
+    private final ConcurrentHashMap<String, RuleMetrics> ruleMetricsMap = new ConcurrentHashMap<>();
+
+    private final RuleMetrics completeMetrics = new RuleMetrics();
+
+    @Override
+    public void onRule(String ruleId, boolean pass, long elapsedNanos) {
+
+        //已经存在时不加锁
+        RuleMetrics ruleMetrics = ruleMetricsMap.get(ruleId);
+        if (ruleMetrics == null) {
+            ruleMetrics = ruleMetricsMap.computeIfAbsent(ruleId, key -> new RuleMetrics());
+        }
+        ruleMetrics.record(pass, elapsedNanos);
+    }
+
+    @Override
+    public void onComplete(boolean pass, long elapsedNanos) {
+        completeMetrics.record(pass, elapsedNanos);
+    }
+
+    /**
+     * @return 按规则标识排列的每条规则的统计，统计对象会随着校验继续更新
+     */
+    public Map<String, RuleMetrics> getRuleMetrics() {
+        return Collections.unmodifiableMap(new TreeMap<>(ruleMetricsMap));
+    }
+
+    /**
+     * @return 完整校验的统计
+     */
+    public RuleMetrics getCompleteMetrics() {
+        return completeMetrics;
+    }
+
+    /**
+     * 清空所有统计
+     */
+    public void reset() {
+        ruleMetricsMap.clear();
+        completeMetrics.reset();
+    }
+
+    /**
+     * 一条规则的统计
+     */
+    public static final class RuleMetrics {
+
+        private final LongAdder passCount = new LongAdder();
+
+        private final LongAdder failCount = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKET_COUNT];
+
+        RuleMetrics() {
+            for (int i = 0; i < latencyBuckets.length; i++) {
+                latencyBuckets[i] = new LongAdder();
+            }
+        }
+
+        void record(boolean pass, long elapsedNanos) {
+            if (pass) {
+                passCount.increment();
+            } else {
+                failCount.increment();
+            }
+
+            if (elapsedNanos >= 0) {
+                totalNanos.add(elapsedNanos);
+                latencyBuckets[Math.min(64 - Long.numberOfLeadingZeros(elapsedNanos), LATENCY_BUCKET_COUNT - 1)].increment();
+            }
+        }
+
+        void reset() {
+            passCount.reset();
+            failCount.reset();
+            totalNanos.reset();
+            for (LongAdder latencyBucket : latencyBuckets) {
+                latencyBucket.reset();
+            }
+        }
+
+        public long getPassCount() {
+            return passCount.sum();
+        }
+
+        public long getFailCount() {
+            return failCount.sum();
+        }
+
+        /**
+         * @return 计时的总耗时(纳秒)
+         */
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        /**
+         * @return 耗时分布，第i个元素为耗时在[2^(i-1), 2^i)纳秒的次数，最后一个元素包含更大的耗时
+         */
+        public long[] getLatencyHistogram() {
+            long[] histogram = new long[latencyBuckets.length];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = latencyBuckets[i].sum();
+            }
+            return histogram;
+        }
+
+        /**
+         * 由耗时分布估算的百分位耗时，结果是所在桶的上限，最多偏大一倍
+         *
+         * @param percentile 百分位，比如0.99
+         * @return 耗时(纳秒)，没有计时数据时为0
+         */
+        public long getPercentileNanos(double percentile) {
+            if (percentile < 0 || percentile > 1) {
+                throw new IllegalArgumentException("百分位需要在0与1之间");
+            }
+
+            long[] histogram = getLatencyHistogram();
+            long total = 0;
+            for (long count : histogram) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = (long) Math.ceil(percentile * total);
+            long count = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                count += histogram[i];
+                if (count >= rank && count > 0) {
+                    return i == histogram.length - 1 ? Long.MAX_VALUE : (1L << i) - 1;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            return "pass=" + getPassCount() + ", fail=" + getFailCount() + ", totalNanos=" + getTotalNanos();
+        }
+    }
+}
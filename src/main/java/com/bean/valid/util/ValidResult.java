@@ -0,0 +1,77 @@
+package com.bean.valid.util;
+
+import com.bean.valid.exption.ValidError;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单个对象的校验结果，通过ValidationPlan的asMapper、validStream方法得到，用于在Stream中按元素处理校验结果
+ *
+ * @param <T> 被校验的对象类型
+ */
+public final class ValidResult<T> {
+
+    /**
+     * 被校验的对象
+     */
+    private final T bean;
+
+    /**
+     * 错误列表，通过校验时为空列表，错误信息在获取时才拼接
+     */
+    private final List<ValidError> validErrors;
+
+    /**
+     * 校验未通过时创建异常的工厂
+     */
+    private final ValidExceptionFactory exceptionFactory;
+
+    ValidResult(T bean, List<ValidError> validErrors, ValidExceptionFactory exceptionFactory) {
+        this.bean = bean;
+        this.validErrors = validErrors;
+        this.exceptionFactory = exceptionFactory;
+    }
+
+    /**
+     * @return 被校验的对象
+     */
+    public T getBean() {
+        return bean;
+    }
+
+    /**
+     * @return 是否通过校验
+     */
+    public boolean isPass() {
+        return validErrors.isEmpty();
+    }
+
+    /**
+     * @return 所有错误信息拼接后的字符串，通过校验时为null
+     */
+    public String getErrorMsg() {
+        return isPass() ? null : ValidError.joinErrorMsg(validErrors);
+    }
+
+    /**
+     * @return 错误列表，通过校验时为空列表
+     */
+    public List<ValidError> getValidErrors() {
+        return Collections.unmodifiableList(validErrors);
+    }
+
+    /**
+     * 未通过校验时抛出异常
+     */
+    public void throwExceptionIfExitsErrorMsg() {
+        if (!isPass()) {
+            throw exceptionFactory.newException(validErrors);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return isPass() ? "pass" : getErrorMsg();
+    }
+}
@@ -1,7 +1,7 @@
 package com.bean.valid.util;
 
 import com.bean.valid.exption.ParamException;
-import org.apache.commons.lang3.StringUtils;
+import com.bean.valid.exption.ValidatedException;
 
 import java.util.*;
 
@@ -12,140 +12,93 @@ import java.util.*;
  * @param <PT> 被校验的父类型
  */
 public class ValidSubBean<ST, PT> extends ValidBean<ST> {
+
+    /**
+     * 父ValidBean，parent方法直接返回它，调用链通过该字段形成一个导航栈
+     */
     private ValidBean<PT> parentValidBean;
 
-    ValidSubBean(ValidBean<PT> parentValidBean, ST paramBean, boolean lazyEnable) {
-        super(paramBean, lazyEnable);
+    /**
+     * when创建的分支中otherwise分支是否跳过校验，不是when创建的为null
+     */
+    private Boolean otherwiseSkipped;
+
+    ValidSubBean(ValidBean<PT> parentValidBean, ST paramBean) {
+        this(parentValidBean, paramBean, false);
+    }
+
+    ValidSubBean(ValidBean<PT> parentValidBean, ST paramBean, boolean skipped) {
+        //与父ValidBean共用调用链的状态与待校验数据列表
+        super(paramBean, getParentChain(parentValidBean), skipped);
 
-        if (parentValidBean == null) {
-            throw new ParamException("父校验bean不能为空");
-        }
         this.parentValidBean = parentValidBean;
+    }
 
+    void setOtherwiseSkipped(boolean otherwiseSkipped) {
+        this.otherwiseSkipped = otherwiseSkipped;
     }
 
     /**
-     * 跳转到父属性校验
-     * @param clazz
-     * @param <T>
+     * 切换到when的条件不满足时的校验，只能在when返回的ValidBean上调用，通过parent回到when之前的对象
+     *
      * @return
      */
-    public <T> ValidBean<T> parent() {
-        return new ValidSubBean<T, ST>(this, (T) parentValidBean.getBean(), isLazy());
+    @Override
+    public ValidSubBean<ST, PT> otherwise() {
+        if (otherwiseSkipped == null) {
+            throw new ValidatedException("只能在when之后调用otherwise");
+        }
+        return newOtherwiseScope(otherwiseSkipped);
     }
 
     /**
-     * 获取父链的ValidTriple列表(不包含本身ValidSubBean)
+     * 创建otherwise的作用域，与当前作用域有相同的父ValidBean与被校验的对象
      *
+     * @param scopeSkipped 作用域中的校验是否跳过
      * @return
      */
-    public List<ValidTriple<Object>> getValidTripleListForParentChain() {
-        List<ValidTriple<Object>> list = new ArrayList<>();
-
-        //父链=父+祖宗链
-
-        //祖宗链
-        if (parentValidBean instanceof ValidSubBean) {
-            list.addAll(((ValidSubBean) parentValidBean).getValidTripleListForParentChain());
-        }
-
-        //父
-        list.addAll(parentValidBean.getValidTripleList());
-
-        return list;
+    ValidSubBean<ST, PT> newOtherwiseScope(boolean scopeSkipped) {
+        return new ValidSubBean<>(parentValidBean, getBean(), scopeSkipped);
     }
 
-    @Override
-    public void complete() {
-        //执行校验并添加错误信息
-
-        //执行父链校验函数
-        if (parentValidBean.isLazy()) {
-            getValidTripleListForParentChain().forEach(this::validValueAndAddErrorMsg);
-        }
-
-        //执行当前ValidBean校验函数
-        if (isLazy()) {
-            getValidTripleList().forEach(this::validValueAndAddErrorMsg);
-        }
-
-        if (parentValidBean.isLazy() || isLazy()) {
+    /**
+     * 池化的调用链复用时重新设置父ValidBean与被校验的对象
+     *
+     * @param parentValidBean 父ValidBean
+     * @param paramBean       被校验的对象，release时为null
+     */
+    void reset(ValidBean<PT> parentValidBean, ST paramBean) {
+        this.parentValidBean = parentValidBean;
+        resetState(paramBean);
+    }
 
-            //存在错误信息时抛出异常
-            throwExceptionIfExitsErrorMsg();
+    private static ValidChain getParentChain(ValidBean<?> parentValidBean) {
+        if (parentValidBean == null) {
+            throw new ParamException("父校验bean不能为空");
         }
+        return parentValidBean.getChain();
     }
 
     /**
-     * ValidBean执行链中是否存在一个及其以上使用默认提示信息的
+     * 获取父链的ValidTriple列表。
+     * 调用链共用同一个待校验列表后无法再区分父链与当前ValidSubBean的数据，现在与getValidTripleList一样返回整条调用链的列表
+     * (包括当前ValidSubBean自身的数据)
      *
      * @return
+     * @deprecated 使用getValidTripleList
      */
-    @Override
-    protected boolean getUseDefaultErrorMsgEnableForChain() {
-        //父与子是否使用了默认错误提示信息
-        return parentValidBean.getUseDefaultErrorMsgEnableForChain() || getUseDefaultErrorMsgEnable();
+    @Deprecated
+    public List<ValidTriple<Object>> getValidTripleListForParentChain() {
+        return getValidTripleList();
     }
 
     /**
-     * 获取所有默认的错误提示信息
-     *
+     * 跳转到父属性校验，直接返回父ValidBean，不会创建新对象
+     * @param <T>
      * @return
      */
-    private Set<String> getAllDefaultErrorMsg() {
-        Set<String> set = new LinkedHashSet<>();
-
-        //父ValidBean调用链中是否存在使用默认错误提示信息的
-        boolean defaultErrorMsgEnableForParentChain = parentValidBean.getUseDefaultErrorMsgEnableForChain();
-
-        //当前ValidBean是否存在使用默认错误提示信息的
-        boolean currentDefaultErrorMsgEnable = getUseDefaultErrorMsgEnable();
-
-        //父链与子都使用了默认错误提示信息
-        if (defaultErrorMsgEnableForParentChain && currentDefaultErrorMsgEnable) {
-
-            //添加父校验的默认错误信息
-            if (parentValidBean instanceof ValidSubBean) {
-                set.addAll(((ValidSubBean) parentValidBean).getAllDefaultErrorMsg());
-            } else {
-                set.add(parentValidBean.getDefaultErrorMsg());
-            }
-            //添加子校验的默认错误信息
-            set.add(getDefaultErrorMsg());
-        }
-
-        //仅父链使用了默认错误提示
-        if (defaultErrorMsgEnableForParentChain && !currentDefaultErrorMsgEnable) {
-            if (parentValidBean instanceof ValidSubBean) {
-                set.addAll(((ValidSubBean) parentValidBean).getAllDefaultErrorMsg());
-            } else {
-                set.add(parentValidBean.getDefaultErrorMsg());
-            }
-        }
-
-        //仅当前校验使用了默认错误提示
-        if (!defaultErrorMsgEnableForParentChain && currentDefaultErrorMsgEnable) {
-            set.add(getDefaultErrorMsg());
-        }
-        return set;
-    }
-
-
- 
-    @Override
-    protected void throwExceptionIfExitsErrorMsg() {
-        StringJoiner joiner = new StringJoiner(",");
-
-        //默认错误消息
-        getAllDefaultErrorMsg().forEach(joiner::add);
-
-        //自定义错误消息
-        getLazyErrorMsgList().forEach(joiner::add);
-
-        //存在错误信息时抛出异常
-        String allErrorMsg = joiner.toString();
-        if (StringUtils.isNotBlank(allErrorMsg)) {
-            throw new ParamException(allErrorMsg);
-        }
+    @SuppressWarnings("unchecked")
+    public <T> ValidBean<T> parent() {
+        return (ValidBean<T>) parentValidBean;
     }
 }
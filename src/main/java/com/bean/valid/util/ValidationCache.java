@@ -0,0 +1,377 @@
+package com.bean.valid.util;
+
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidError;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 校验结果缓存，用于反复校验不可变对象(比如配置、商品目录)，缓存命中时只需要一次查找(默认的key还需要创建一个包装对象)。
+ * <pre>
+ * private static final ValidationCache&lt;Config&gt; CONFIG_CACHE = ValidationCache.&lt;Config&gt;builder()
+ *         .maximumSize(1000)
+ *         .expireAfterWrite(10, TimeUnit.MINUTES)
+ *         .build(CONFIG_PLAN);
+ *
+ * CONFIG_CACHE.valid(config);
+ * </pre>
+ * 默认以对象本身(==)作为key，也可以通过keyFunction指定key。默认的key强引用被校验的对象，对象在结果被淘汰之前不会被回收，
+ * 缓存大量大对象时应通过keyFunction使用id等小的key。ConcurrentHashMap只能按equals查找，默认的key每次查找(包括命中)
+ * 都会创建一个按==比较的包装对象；对象的equals与hashCode本身就可以作为key时，使用keyFunction(Function.identity())没有这个开销。
+ * <p>
+ * 缓存的错误列表不可修改，getValidErrors返回的列表与异常中的列表都不能修改，避免调用方修改后影响之后的校验结果。
+ * <p>
+ * 缓存基于ConcurrentHashMap，命中时没有锁，只记录访问时间。超过maximumSize时由一个线程批量淘汰最久未访问的结果(近似LRU)，
+ * 其它线程不等待，淘汰期间缓存的结果个数可能短暂超过maximumSize。未通过校验的结果同样会被缓存，命中时抛出错误信息相同的异常。
+ * <p>
+ * 只能缓存不可变对象的校验结果，对象修改后需要调用invalidate。多个线程同时未命中同一个key时可能会重复校验
+ *
+ * @param <T> 被校验的对象类型
+ */
+public final class ValidationCache<T> {
+
+    /**
+     * 校验对象并返回错误列表的函数，通过校验时返回空列表
+     */
+    private final Function<T, List<ValidError>> validator;
+
+    /**
+     * 获取缓存key的函数
+     */
+    private final Function<T, Object> keyFunction;
+
+    private final int maximumSize;
+
+    /**
+     * 缓存的有效时间，0表示不过期
+     */
+    private final long expireAfterWriteNanos;
+
+    private final ValidExceptionFactory exceptionFactory;
+
+    /**
+     * 超过maximumSize时每次多淘汰的比例(1/EVICTION_BATCH_DIVISOR)，使淘汰的开销分摊到多次写入
+     */
+    private static final int EVICTION_BATCH_DIVISOR = 16;
+
+    private final ConcurrentHashMap<Object, CacheEntry> cacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * 是否有线程正在淘汰，同一时间只有一个线程淘汰
+     */
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private ValidationCache(Builder<T> builder, Function<T, List<ValidError>> validator, ValidExceptionFactory exceptionFactory) {
+        this.validator = validator;
+        this.keyFunction = builder.keyFunction;
+        this.maximumSize = builder.maximumSize;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.exceptionFactory = exceptionFactory;
+    }
+
+    /**
+     * 创建校验结果缓存的构建器
+     *
+     * @param <P> 被校验的对象类型
+     * @return
+     */
+    public static <P> Builder<P> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * 校验对象，优先使用缓存的结果，不符合校验则抛出异常
+     *
+     * @param bean 被校验的对象
+     */
+    public void valid(T bean) {
+        List<ValidError> validErrors = getValidErrors(bean);
+        if (!validErrors.isEmpty()) {
+            throw exceptionFactory.newException(validErrors);
+        }
+    }
+
+    /**
+     * 校验对象，优先使用缓存的结果，不抛出异常
+     *
+     * @param bean 被校验的对象
+     * @return 不可修改的错误列表，通过校验时为空列表
+     */
+    public List<ValidError> getValidErrors(T bean) {
+        if (bean == null) {
+            throw new ParamException("参数不能为空");
+        }
+
+        Object key = keyFunction.apply(bean);
+        CacheEntry cacheEntry = cacheMap.get(key);
+        if (cacheEntry != null) {
+            long nowNanos = System.nanoTime();
+            if (!isExpired(cacheEntry, nowNanos)) {
+                cacheEntry.accessNanos = nowNanos;
+                hitCount.increment();
+                return cacheEntry.validErrors;
+            }
+            if (cacheMap.remove(key, cacheEntry)) {
+                evictionCount.increment();
+            }
+        }
+        missCount.increment();
+
+        //复制为不可修改的列表，调用方拿到的列表与缓存中的是同一个
+        List<ValidError> validErrors = validator.apply(bean);
+        validErrors = validErrors.isEmpty()
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(validErrors));
+        cacheMap.put(key, new CacheEntry(validErrors, System.nanoTime()));
+        if (cacheMap.size() > maximumSize) {
+            evict();
+        }
+        return validErrors;
+    }
+
+    private boolean isExpired(CacheEntry cacheEntry, long nowNanos) {
+        return expireAfterWriteNanos > 0 && nowNanos - cacheEntry.writeNanos >= expireAfterWriteNanos;
+    }
+
+    /**
+     * 批量淘汰最久未访问的结果，使缓存的结果个数回到maximumSize以下并留出一部分空间。
+     * 已经有线程在淘汰时直接返回
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            int evictCount = cacheMap.size() - maximumSize + maximumSize / EVICTION_BATCH_DIVISOR;
+            if (evictCount <= 0) {
+                return;
+            }
+
+            List<Map.Entry<Object, CacheEntry>> entryList = new ArrayList<>(cacheMap.entrySet());
+            entryList.sort(Comparator.comparingLong(entry -> entry.getValue().accessNanos));
+            for (int i = 0; i < evictCount && i < entryList.size(); i++) {
+                Map.Entry<Object, CacheEntry> entry = entryList.get(i);
+                if (cacheMap.remove(entry.getKey(), entry.getValue())) {
+                    evictionCount.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * 删除对象的缓存结果，对象修改后调用
+     *
+     * @param bean 被校验的对象
+     */
+    public void invalidate(T bean) {
+        Objects.requireNonNull(bean);
+        cacheMap.remove(keyFunction.apply(bean));
+    }
+
+    /**
+     * 删除所有缓存结果
+     */
+    public void invalidateAll() {
+        cacheMap.clear();
+    }
+
+    /**
+     * @return 缓存的结果个数(可能包含已经过期但还没有删除的)
+     */
+    public int size() {
+        return cacheMap.size();
+    }
+
+    /**
+     * @return 命中缓存的次数
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return 未命中缓存的次数
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return 因为超过maximumSize或者过期被淘汰的结果个数
+     */
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return 命中率，没有请求时为1
+     */
+    public double getHitRate() {
+        long hit = hitCount.sum();
+        long total = hit + missCount.sum();
+        return total == 0 ? 1.0 : (double) hit / total;
+    }
+
+    /**
+     * 缓存的校验结果
+     */
+    private static final class CacheEntry {
+        private final List<ValidError> validErrors;
+
+        private final long writeNanos;
+
+        /**
+         * 最后访问的时间，命中时直接覆盖，用于近似LRU淘汰
+         */
+        private volatile long accessNanos;
+
+        CacheEntry(List<ValidError> validErrors, long writeNanos) {
+            this.validErrors = validErrors;
+            this.writeNanos = writeNanos;
+            this.accessNanos = writeNanos;
+        }
+    }
+
+    /**
+     * 以对象本身(==)作为key
+     */
+    private static final class IdentityKey {
+        private final Object bean;
+
+        IdentityKey(Object bean) {
+            this.bean = bean;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).bean == bean;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(bean);
+        }
+    }
+
+    /**
+     * 校验结果缓存的构建器
+     *
+     * @param <T> 被校验的对象类型
+     */
+    public static final class Builder<T> {
+
+        private Function<T, Object> keyFunction = IdentityKey::new;
+
+        private int maximumSize = 1024;
+
+        private long expireAfterWriteNanos;
+
+        private ValidExceptionFactory exceptionFactory;
+
+        private Builder() {
+        }
+
+        /**
+         * 指定缓存的key，比如对象的id与版本号，key需要正确实现equals与hashCode。
+         * 默认以对象本身(==)作为key，缓存的结果被淘汰之前对象不会被回收，并且每次查找都会创建一个包装对象
+         *
+         * @param keyFunction 获取key的函数
+         * @return
+         */
+        @SuppressWarnings("unchecked")
+        public Builder<T> keyFunction(Function<? super T, ?> keyFunction) {
+            Objects.requireNonNull(keyFunction);
+            this.keyFunction = (Function<T, Object>) keyFunction;
+            return this;
+        }
+
+        /**
+         * 最多缓存的结果个数，超过时批量淘汰最久未访问的结果，默认1024
+         *
+         * @param maximumSize 最多缓存的结果个数
+         * @return
+         */
+        public Builder<T> maximumSize(int maximumSize) {
+            if (maximumSize <= 0) {
+                throw new IllegalArgumentException("最多缓存的结果个数需要大于0");
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * 缓存结果写入后的有效时间，默认不过期
+         *
+         * @param duration 有效时间
+         * @param unit     时间单位
+         * @return
+         */
+        public Builder<T> expireAfterWrite(long duration, TimeUnit unit) {
+            Objects.requireNonNull(unit);
+            if (duration <= 0) {
+                throw new IllegalArgumentException("有效时间需要大于0");
+            }
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * 设置命中未通过校验的结果时创建异常的工厂，默认与校验计划一致
+         *
+         * @param exceptionFactory 创建异常的工厂
+         * @return
+         */
+        public Builder<T> exceptionFactory(ValidExceptionFactory exceptionFactory) {
+            Objects.requireNonNull(exceptionFactory);
+            this.exceptionFactory = exceptionFactory;
+            return this;
+        }
+
+        /**
+         * 在校验计划前面加上缓存
+         *
+         * @param plan 校验计划
+         * @return
+         */
+        public ValidationCache<T> build(ValidationPlan<T> plan) {
+            Objects.requireNonNull(plan);
+            return new ValidationCache<>(this, bean -> plan.getValidErrors(bean),
+                    exceptionFactory == null ? plan.getExceptionFactory() : exceptionFactory);
+        }
+
+        /**
+         * 在ValidBean的校验前面加上缓存，比如 bean -&gt; ValidBean.of(bean).notEmpty(...).complete()。
+         * 只缓存通过校验与抛出ParamException的结果，其它异常原样抛出
+         *
+         * @param validator 校验对象的函数，不符合校验时抛出ParamException
+         * @return
+         */
+        public ValidationCache<T> build(Consumer<T> validator) {
+            Objects.requireNonNull(validator);
+            return new ValidationCache<>(this, bean -> {
+                try {
+                    validator.accept(bean);
+                    return Collections.emptyList();
+                } catch (ParamException e) {
+                    List<ValidError> validErrors = e.getValidErrors();
+                    return validErrors.isEmpty() ? Collections.singletonList(new ValidError(null, e.getMessage())) : validErrors;
+                }
+            }, exceptionFactory == null ? ValidExceptionFactory.FULL_STACK_TRACE : exceptionFactory);
+        }
+    }
+}
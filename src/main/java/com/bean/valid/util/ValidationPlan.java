@@ -0,0 +1,1630 @@
+package com.bean.valid.util;
+
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidError;
+import com.bean.valid.exption.ValidatedException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 编译后的校验计划。
+ * <p>
+ * 使用与ValidBean相同的链式方法(notEmpty、empty、valid、map、parent)描述一次校验规则，build之后不可变，
+ * 可以保存在静态字段中，多线程共享并重复校验任意多个对象。校验通过时不会创建任何对象。
+ * <pre>
+ * private static final ValidationPlan&lt;Data2&lt;GenericData1, GenericData2&gt;&gt; PLAN =
+ *         ValidationPlan.&lt;Data2&lt;GenericData1, GenericData2&gt;&gt;builder()
+ *                 .notEmpty(Data2::getBusinessId, "商户id不能为空")
+ *                 .map(Data2::getParams1)
+ *                 .notEmpty(GenericData1::getEndDate, "开始时间不能为空")
+ *                 .&lt;Data2&lt;GenericData1, GenericData2&gt;&gt;parent()
+ *                 .map(Data2::getParams2)
+ *                 .notEmpty(GenericData2::getName, "名字不能为空")
+ *                 .build();
+ *
+ * PLAN.valid(data);
+ * </pre>
+ * 错误信息与懒惰执行的ValidBean一致：默认错误信息放在开头，其后是按声明顺序排列的自定义错误信息。
+ * 错误对象在build时创建好，校验时只记录引用，消息在获取时才拼接
+ *
+ * @param <T> 被校验的对象类型
+ */
+public final class ValidationPlan<T> {
+
+    /**
+     * 默认校验对，与ValidBean保持一致
+     */
+    private static final ValidBean.ValidPair<Object> defaultValidPair = ValidBean.needNotEmptyValidPair;
+
+    /**
+     * 默认错误
+     */
+    private static final ValidError DEFAULT_VALID_ERROR = new ValidError(null, defaultValidPair.errorMsg);
+
+    /**
+     * 子属性为空时的错误
+     */
+    private static final ValidError NULL_SUB_BEAN_VALID_ERROR = new ValidError(null, "被校验的子属性不能为空");
+
+    /**
+     * 批量校验时每段的最小对象数
+     */
+    private static final int MIN_BATCH_SEGMENT_SIZE = 256;
+
+    /**
+     * 自适应排序时每多少次校验采样一次耗时与失败次数
+     */
+    private static final int ADAPTIVE_SAMPLE_RATE = 64;
+
+    /**
+     * 自适应排序时每采样多少次重新排序一次
+     */
+    private static final int ADAPTIVE_REORDER_INTERVAL = 256;
+
+    /**
+     * 根对象的校验步骤，已经去掉了未选择的分组
+     */
+    private final Step[] steps;
+
+    /**
+     * 包含所有分组的校验步骤，用于选择分组
+     */
+    private final Step[] allGroupSteps;
+
+    /**
+     * 选择的分组，不包括没有分组的规则
+     */
+    private final Set<String> activeGroups;
+
+    /**
+     * 按分组选择的校验计划，每种分组组合只编译一次
+     */
+    private final ConcurrentHashMap<Set<String>, ValidationPlan<T>> groupPlanMap;
+
+    /**
+     * 校验未通过时创建异常的工厂
+     */
+    private final ValidExceptionFactory exceptionFactory;
+
+    /**
+     * 最多收集的错误信息条数，达到后不再执行剩余的校验步骤。0表示不限制
+     */
+    private final int errorBudget;
+
+    /**
+     * 校验过程的监听器，为null时不通知
+     */
+    private final ValidListener listener;
+
+    private ValidationPlan(Step[] allGroupSteps, Set<String> activeGroups, ConcurrentHashMap<Set<String>, ValidationPlan<T>> groupPlanMap,
+                           ValidExceptionFactory exceptionFactory, int errorBudget, ValidListener listener) {
+        this.steps = selectGroups(allGroupSteps, activeGroups);
+        this.allGroupSteps = allGroupSteps;
+        this.activeGroups = activeGroups;
+        this.groupPlanMap = groupPlanMap;
+        this.exceptionFactory = exceptionFactory;
+        this.errorBudget = errorBudget;
+        this.listener = listener;
+    }
+
+    /**
+     * 选择分组：返回执行没有分组的规则以及指定分组中的规则的校验计划。
+     * 每种分组组合只编译一次并缓存，之后选择分组只需要一次查找；可以把返回的校验计划保存在静态字段中，校验时没有任何选择分组的开销
+     *
+     * @param groups 分组，为空时只执行没有分组的规则
+     * @return
+     */
+    public ValidationPlan<T> forGroups(String... groups) {
+        Set<String> groupSet = new HashSet<>(Arrays.asList(groups));
+        if (groupSet.equals(activeGroups)) {
+            return this;
+        }
+        return groupPlanMap.computeIfAbsent(groupSet, key -> new ValidationPlan<>(allGroupSteps,
+                Collections.unmodifiableSet(key), groupPlanMap, exceptionFactory, errorBudget, listener));
+    }
+
+    /**
+     * 创建校验计划的构建器
+     *
+     * @param <P> 被校验的对象类型
+     * @return
+     */
+    public static <P> Builder<P> builder() {
+        return new Builder<>(null, null);
+    }
+
+    /**
+     * @return 校验未通过时创建异常的工厂
+     */
+    ValidExceptionFactory getExceptionFactory() {
+        return exceptionFactory;
+    }
+
+    /**
+     * 按照校验计划校验对象，不符合校验则抛出异常
+     *
+     * @param bean 被校验的对象
+     */
+    public void valid(T bean) {
+        if (bean == null) {
+            throw new ParamException("参数不能为空");
+        }
+
+        //存在错误信息时抛出异常
+        ErrorMsgCollector collector = validRoot(bean);
+        if (collector != null) {
+            throw exceptionFactory.newException(collector.getValidErrors());
+        }
+    }
+
+    /**
+     * 按照校验计划校验对象，不抛出异常
+     *
+     * @param bean 被校验的对象
+     * @return 所有错误信息拼接后的字符串，通过校验时为null
+     */
+    public String getErrorMsg(T bean) {
+        if (bean == null) {
+            return "参数不能为空";
+        }
+
+        ErrorMsgCollector collector = validRoot(bean);
+        return collector == null ? null : ValidError.joinErrorMsg(collector.getValidErrors());
+    }
+
+    /**
+     * 按照校验计划校验对象，不抛出异常
+     *
+     * @param bean 被校验的对象
+     * @return 按顺序排列的错误列表(默认错误在开头)，通过校验时为空列表
+     */
+    public List<ValidError> getValidErrors(T bean) {
+        if (bean == null) {
+            return Collections.singletonList(new ValidError(null, "参数不能为空"));
+        }
+
+        ErrorMsgCollector collector = validRoot(bean);
+        return collector == null ? Collections.emptyList() : collector.getValidErrors();
+    }
+
+    /**
+     * 转换为Predicate，用于Stream的filter等，通过校验时返回true。校验通过时不会创建任何对象
+     *
+     * @return
+     */
+    public Predicate<T> asPredicate() {
+        return bean -> bean != null && validRoot(bean) == null;
+    }
+
+    /**
+     * 转换为把对象映射为校验结果的函数，用于Stream的map等，不抛出异常
+     *
+     * @return
+     */
+    public Function<T, ValidResult<T>> asMapper() {
+        return bean -> new ValidResult<>(bean, getValidErrors(bean), exceptionFactory);
+    }
+
+    /**
+     * 把对象流映射为校验结果流。与原流一样是懒惰的，每次只校验流出的一个元素，不缓存元素；
+     * 原流是并行流时并行校验
+     *
+     * @param beans 被校验的对象流
+     * @return
+     */
+    public Stream<ValidResult<T>> validStream(Stream<? extends T> beans) {
+        Objects.requireNonNull(beans);
+        return beans.map(asMapper());
+    }
+
+    /**
+     * 把Spliterator中的对象映射为校验结果流，用于文件读取等不能一次放进内存的数据源
+     *
+     * @param beans    被校验对象的Spliterator
+     * @param parallel 是否并行校验
+     * @return
+     */
+    public Stream<ValidResult<T>> validStream(Spliterator<? extends T> beans, boolean parallel) {
+        Objects.requireNonNull(beans);
+        return validStream(StreamSupport.stream(beans, parallel));
+    }
+
+    /**
+     * 批量校验，在ForkJoinPool.commonPool()中并行执行
+     *
+     * @param beans 被校验的对象集合
+     * @return 按集合中的位置索引的校验结果，不会为每个未通过的对象创建异常
+     */
+    public ValidBatchResult validateAll(Collection<? extends T> beans) {
+        return validateAll(beans, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量校验，集合按位置切分成多段后在指定线程池中并行执行
+     *
+     * @param beans    被校验的对象集合
+     * @param executor 执行校验的线程池
+     * @return 按集合中的位置索引的校验结果，不会为每个未通过的对象创建异常
+     */
+    @SuppressWarnings("unchecked")
+    public ValidBatchResult validateAll(Collection<? extends T> beans, Executor executor) {
+        Objects.requireNonNull(beans);
+        Objects.requireNonNull(executor);
+
+        Object[] beanArray = beans.toArray();
+        List<ValidError>[] validErrors = new List[beanArray.length];
+
+        //每个线程处理若干段，段不能太小，否则调度开销会超过校验本身
+        int segmentCount = Runtime.getRuntime().availableProcessors() * 4;
+        int segmentSize = Math.max(MIN_BATCH_SEGMENT_SIZE, (beanArray.length + segmentCount - 1) / segmentCount);
+
+        List<CompletableFuture<Void>> futureList = new ArrayList<>();
+        for (int start = 0; start < beanArray.length; start += segmentSize) {
+            int from = start;
+            int to = Math.min(start + segmentSize, beanArray.length);
+            futureList.add(CompletableFuture.runAsync(() -> {
+                for (int i = from; i < to; i++) {
+                    List<ValidError> beanValidErrors = getValidErrors((T) beanArray[i]);
+                    validErrors[i] = beanValidErrors.isEmpty() ? null : beanValidErrors;
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futureList.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            //校验函数抛出的异常原样抛出
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return new ValidBatchResult(validErrors, exceptionFactory);
+    }
+
+    /**
+     * 按照校验计划校验集合中的每个元素，供ValidBean的each使用
+     *
+     * @param elements          被校验的集合，为null时不校验
+     * @param parallelThreshold 元素个数达到该值的List并行校验，0表示不并行
+     * @param chainErrorBudget  调用链剩余的错误信息条数，0表示不限制，与校验计划的限制取较小的
+     * @return 所有元素的错误列表，错误信息以"[位置]"开头，通过校验时为空列表
+     */
+    List<ValidError> getEachValidErrors(Collection<?> elements, int parallelThreshold, int chainErrorBudget) {
+        ErrorMsgCollector collector = validEach(steps, elements, parallelThreshold, null, minErrorBudget(errorBudget, chainErrorBudget));
+        return collector == null ? Collections.emptyList() : collector.getValidErrors();
+    }
+
+    /**
+     * 按照校验计划校验Map中的每个value，供ValidBean的eachValue使用
+     *
+     * @param map              被校验的Map，为null时不校验
+     * @param chainErrorBudget 调用链剩余的错误信息条数，0表示不限制，与校验计划的限制取较小的
+     * @return 所有value的错误列表，错误信息以"[key]"开头，通过校验时为空列表
+     */
+    List<ValidError> getEachValueValidErrors(Map<?, ?> map, int chainErrorBudget) {
+        ErrorMsgCollector collector = validEachValue(steps, map, null, minErrorBudget(errorBudget, chainErrorBudget));
+        return collector == null ? Collections.emptyList() : collector.getValidErrors();
+    }
+
+    /**
+     * @param errorBudget      错误信息条数限制，0表示不限制
+     * @param otherErrorBudget 另一个错误信息条数限制，0表示不限制
+     * @return 两个限制中较严格的
+     */
+    private static int minErrorBudget(int errorBudget, int otherErrorBudget) {
+        if (errorBudget == 0) {
+            return otherErrorBudget;
+        }
+        return otherErrorBudget == 0 ? errorBudget : Math.min(errorBudget, otherErrorBudget);
+    }
+
+    /**
+     * 校验根对象，存在监听器时通知监听器
+     *
+     * @param bean 被校验的对象
+     * @return 错误信息收集器，不存在错误信息时为null
+     */
+    private ErrorMsgCollector validRoot(Object bean) {
+        if (listener == null) {
+            return validSteps(steps, bean, null, errorBudget);
+        }
+
+        long startNanos = listener.isTimingEnabled() ? System.nanoTime() : 0;
+        boolean pass = false;
+        try {
+            ErrorMsgCollector collector = validSteps(steps, bean, null, errorBudget);
+            pass = collector == null;
+            return collector;
+        } finally {
+            listener.onComplete(pass, listener.isTimingEnabled() ? System.nanoTime() - startNanos : ValidListener.NO_TIMING);
+        }
+    }
+
+    /**
+     * 依次执行校验步骤
+     *
+     * @param steps       校验步骤
+     * @param bean        被校验的对象
+     * @param collector   错误信息收集器，还没有错误信息时为null
+     * @param errorBudget 最多收集的错误信息条数，0表示不限制
+     * @return 错误信息收集器，不存在错误信息时为null
+     */
+    private static ErrorMsgCollector validSteps(Step[] steps, Object bean, ErrorMsgCollector collector, int errorBudget) {
+        for (int i = 0; i < steps.length; i++) {
+            collector = steps[i].valid(bean, collector, errorBudget);
+
+            //子属性为空或者错误信息条数达到限制后，不再执行剩余的校验步骤
+            if (collector != null && collector.isStopped(errorBudget)) {
+                break;
+            }
+        }
+        return collector;
+    }
+
+    /**
+     * 校验集合中的每个元素，直接遍历集合不复制。
+     * 元素个数达到parallelThreshold且支持随机访问的List按位置并行校验，错误仍按位置顺序排列；
+     * 并行校验时所有元素都会校验，错误信息按位置顺序截取到errorBudget条
+     *
+     * @param steps             每个元素的校验步骤
+     * @param elements          被校验的集合，为null时不校验
+     * @param parallelThreshold 元素个数达到该值时并行校验，0表示不并行
+     * @param collector         错误信息收集器，还没有错误信息时为null
+     * @param errorBudget       最多收集的错误信息条数，0表示不限制
+     * @return 错误信息收集器，不存在错误信息时为null
+     */
+    private static ErrorMsgCollector validEach(Step[] steps, Collection<?> elements, int parallelThreshold,
+                                               ErrorMsgCollector collector, int errorBudget) {
+        if (elements == null || elements.isEmpty()) {
+            return collector;
+        }
+
+        if (parallelThreshold > 0 && elements.size() >= parallelThreshold
+                && elements instanceof List && elements instanceof RandomAccess) {
+            List<?> list = (List<?>) elements;
+            List<List<ValidError>> elementErrorsList = IntStream.range(0, list.size())
+                    .parallel()
+                    .mapToObj(i -> validElement(steps, list.get(i), i, errorBudget))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            for (List<ValidError> elementErrors : elementErrorsList) {
+                collector = addElementErrors(collector, elementErrors, errorBudget);
+                if (collector.isStopped(errorBudget)) {
+                    break;
+                }
+            }
+            return collector;
+        }
+
+        int index = 0;
+        for (Object element : elements) {
+            List<ValidError> elementErrors = validElement(steps, element, index++, errorBudget);
+            if (elementErrors != null) {
+                collector = addElementErrors(collector, elementErrors, errorBudget);
+                if (collector.isStopped(errorBudget)) {
+                    break;
+                }
+            }
+        }
+        return collector;
+    }
+
+    /**
+     * 校验Map中的每个value，直接遍历entrySet不复制
+     *
+     * @param steps       每个value的校验步骤
+     * @param map         被校验的Map，为null时不校验
+     * @param collector   错误信息收集器，还没有错误信息时为null
+     * @param errorBudget 最多收集的错误信息条数，0表示不限制
+     * @return 错误信息收集器，不存在错误信息时为null
+     */
+    private static ErrorMsgCollector validEachValue(Step[] steps, Map<?, ?> map, ErrorMsgCollector collector, int errorBudget) {
+        if (map == null || map.isEmpty()) {
+            return collector;
+        }
+
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            List<ValidError> elementErrors = validElement(steps, entry.getValue(), entry.getKey(), errorBudget);
+            if (elementErrors != null) {
+                collector = addElementErrors(collector, elementErrors, errorBudget);
+                if (collector.isStopped(errorBudget)) {
+                    break;
+                }
+            }
+        }
+        return collector;
+    }
+
+    /**
+     * 校验一个元素
+     *
+     * @param steps       元素的校验步骤
+     * @param element     被校验的元素
+     * @param key         元素的位置或者key
+     * @param errorBudget 最多收集的错误信息条数，0表示不限制
+     * @return 带上位置的错误列表，通过校验时为null
+     */
+    private static List<ValidError> validElement(Step[] steps, Object element, Object key, int errorBudget) {
+        List<ValidError> validErrors = element == null
+                ? Collections.singletonList(NULL_SUB_BEAN_VALID_ERROR)
+                : getValidErrors(validSteps(steps, element, null, errorBudget));
+        if (validErrors == null) {
+            return null;
+        }
+
+        //只有未通过校验时才拼接位置
+        String path = "[" + key + "]";
+        List<ValidError> elementErrors = new ArrayList<>(validErrors.size());
+        for (ValidError validError : validErrors) {
+            elementErrors.add(validError.withPath(path));
+        }
+        return elementErrors;
+    }
+
+    private static List<ValidError> getValidErrors(ErrorMsgCollector collector) {
+        return collector == null ? null : collector.getValidErrors();
+    }
+
+    private static ErrorMsgCollector addElementErrors(ErrorMsgCollector collector, List<ValidError> elementErrors, int errorBudget) {
+        if (collector == null) {
+            collector = new ErrorMsgCollector();
+        }
+        for (ValidError elementError : elementErrors) {
+            if (collector.isStopped(errorBudget)) {
+                break;
+            }
+            collector.addValidError(elementError);
+        }
+        return collector;
+    }
+
+    /**
+     * 按选择的分组去掉未选择的分组中的步骤，选择的分组中的步骤直接展开到所在的步骤数组中
+     *
+     * @param steps        校验步骤
+     * @param activeGroups 选择的分组
+     * @return 没有变化时返回原数组
+     */
+    private static Step[] selectGroups(Step[] steps, Set<String> activeGroups) {
+        List<Step> selectedStepList = new ArrayList<>(steps.length);
+        boolean changed = false;
+        for (Step step : steps) {
+            if (step instanceof GroupStep) {
+                GroupStep groupStep = (GroupStep) step;
+                if (!Collections.disjoint(groupStep.groups, activeGroups)) {
+                    selectedStepList.addAll(Arrays.asList(selectGroups(groupStep.steps, activeGroups)));
+                }
+                changed = true;
+            } else {
+                Step selectedStep = step.selectGroups(activeGroups);
+                selectedStepList.add(selectedStep);
+                changed |= selectedStep != step;
+            }
+        }
+        return changed ? selectedStepList.toArray(new Step[0]) : steps;
+    }
+
+    /**
+     * 校验步骤
+     */
+    private static abstract class Step {
+
+        /**
+         * @param bean        被校验的对象
+         * @param collector   错误信息收集器，还没有错误信息时为null
+         * @param errorBudget 最多收集的错误信息条数，0表示不限制
+         * @return 错误信息收集器，不存在错误信息时为null
+         */
+        abstract ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget);
+
+        /**
+         * @param name      校验计划的名称
+         * @param ruleIndex 规则在校验计划中的声明位置
+         * @return 通知监听器时的规则标识，不是单条规则的步骤为null
+         */
+        String getRuleId(String name, int ruleIndex) {
+            return null;
+        }
+
+        /**
+         * @param activeGroups 选择的分组
+         * @return 去掉未选择的分组后的步骤，没有变化时返回自身
+         */
+        Step selectGroups(Set<String> activeGroups) {
+            return this;
+        }
+    }
+
+    /**
+     * 分组中的步骤，只在构建时存在，创建校验计划时按选择的分组去掉或者展开
+     */
+    private static final class GroupStep extends Step {
+        private final Set<String> groups;
+
+        private final Step[] steps;
+
+        GroupStep(Set<String> groups, Step[] steps) {
+            this.groups = groups;
+            this.steps = steps;
+        }
+
+        @Override
+        ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget) {
+            throw new IllegalStateException("分组步骤需要先按选择的分组展开");
+        }
+    }
+
+    /**
+     * 自适应排序的步骤，包含连续的多条相互独立的规则(没有pin的notEmpty、empty、valid等)。
+     * 抽样统计每条规则的平均耗时与失败率，定期按"耗时/失败率"从小到大重新排序，
+     * 让便宜又容易失败的规则先执行。
+     * <p>
+     * 报告的错误与按声明顺序执行时完全相同，与当前的执行顺序无关：达到错误条数限制时，按声明顺序补充执行最后一个失败规则之前、
+     * 还没有执行的规则，直到声明顺序上的错误达到限制，再按声明顺序取最先失败的规则。
+     * 因此按声明顺序会执行的规则总会执行，排序不会减少执行的规则，提前执行的规则是额外的开销
+     */
+    private static final class AdaptiveStep extends Step {
+
+        /**
+         * 按声明顺序排列的规则
+         */
+        private final Step[] steps;
+
+        /**
+         * 当前的执行顺序，元素为规则在steps中的位置，重新排序时整体替换
+         */
+        private volatile int[] order;
+
+        /**
+         * 每条规则采样的执行次数
+         */
+        private final AtomicLongArray sampledCounts;
+
+        /**
+         * 每条规则采样的总耗时
+         */
+        private final AtomicLongArray sampledNanos;
+
+        /**
+         * 每条规则采样的失败次数
+         */
+        private final AtomicLongArray sampledFailedCounts;
+
+        /**
+         * 采样的校验次数，用于定期重新排序
+         */
+        private final AtomicInteger sampledRunCount = new AtomicInteger();
+
+        /**
+         * 记录规则结果时代表使用默认错误信息的错误
+         */
+        private static final ValidError DEFAULT_ERROR_MARK = new ValidError(null, "");
+
+        AdaptiveStep(Step[] steps) {
+            this.steps = steps;
+            this.order = IntStream.range(0, steps.length).toArray();
+            this.sampledCounts = new AtomicLongArray(steps.length);
+            this.sampledNanos = new AtomicLongArray(steps.length);
+            this.sampledFailedCounts = new AtomicLongArray(steps.length);
+        }
+
+        @Override
+        ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget) {
+            //不共享计数器，避免多线程校验时竞争
+            boolean sampled = ThreadLocalRandom.current().nextInt(ADAPTIVE_SAMPLE_RATE) == 0;
+            int errorFromIndex = collector == null ? 0 : collector.validErrorList.size();
+            int failedCountBefore = collector == null ? 0 : collector.failedCount;
+            boolean useDefaultErrorMsgBefore = collector != null && collector.useDefaultErrorMsgEnable;
+
+            //每条规则(按声明位置)未通过时的错误，只在出现错误时才创建
+            ValidError[] stepErrors = null;
+
+            int[] currentOrder = order;
+            int executedCount = 0;
+            boolean stopped = false;
+            while (executedCount < currentOrder.length) {
+                int stepIndex = currentOrder[executedCount++];
+                int failedCount = collector == null ? 0 : collector.failedCount;
+                int errorSize = collector == null ? 0 : collector.validErrorList.size();
+                collector = validStep(stepIndex, bean, collector, errorBudget, sampled);
+
+                if (collector != null && collector.failedCount != failedCount) {
+                    if (stepErrors == null) {
+                        stepErrors = new ValidError[steps.length];
+                    }
+                    stepErrors[stepIndex] = collector.validErrorList.size() != errorSize
+                            ? collector.validErrorList.get(collector.validErrorList.size() - 1)
+                            : DEFAULT_ERROR_MARK;
+                    if (collector.isStopped(errorBudget)) {
+                        stopped = true;
+                        break;
+                    }
+                }
+            }
+
+            if (stepErrors != null) {
+                if (stopped) {
+                    //按声明顺序补充执行最后一个失败规则之前还没有执行的规则，声明顺序上的错误达到errorBudget后不再执行，
+                    //使结果与按声明顺序执行时相同
+                    int lastFailedIndex = steps.length - 1;
+                    while (stepErrors[lastFailedIndex] == null) {
+                        lastFailedIndex--;
+                    }
+                    boolean[] executed = new boolean[steps.length];
+                    for (int i = 0; i < executedCount; i++) {
+                        executed[currentOrder[i]] = true;
+                    }
+                    int errorCount = useDefaultErrorMsgBefore ? errorFromIndex + 1 : errorFromIndex;
+                    boolean useDefaultErrorMsg = useDefaultErrorMsgBefore;
+                    for (int stepIndex = 0; stepIndex < lastFailedIndex; stepIndex++) {
+                        if (!executed[stepIndex]) {
+                            int failedCount = collector.failedCount;
+                            int errorSize = collector.validErrorList.size();
+                            collector = validStep(stepIndex, bean, collector, errorBudget, sampled);
+                            if (collector.failedCount != failedCount) {
+                                stepErrors[stepIndex] = collector.validErrorList.size() != errorSize
+                                        ? collector.validErrorList.get(collector.validErrorList.size() - 1)
+                                        : DEFAULT_ERROR_MARK;
+                            }
+                        }
+
+                        //与ErrorMsgCollector.isStopped一样，默认错误信息只算一条
+                        if (stepErrors[stepIndex] == DEFAULT_ERROR_MARK) {
+                            if (!useDefaultErrorMsg) {
+                                useDefaultErrorMsg = true;
+                                errorCount++;
+                            }
+                        } else if (stepErrors[stepIndex] != null) {
+                            errorCount++;
+                        }
+                        if (collector.fatalValidError != null || (errorBudget > 0 && errorCount >= errorBudget)) {
+                            break;
+                        }
+                    }
+                }
+                addValidErrorsInDeclaredOrder(collector, stepErrors, errorFromIndex, failedCountBefore,
+                        useDefaultErrorMsgBefore, errorBudget);
+            }
+
+            if (sampled && sampledRunCount.incrementAndGet() % ADAPTIVE_REORDER_INTERVAL == 0) {
+                reorder();
+            }
+            return collector;
+        }
+
+        /**
+         * 执行一条规则，抽样时记录耗时与是否失败
+         *
+         * @param stepIndex   规则在steps中的位置
+         * @param bean        被校验的对象
+         * @param collector   错误信息收集器
+         * @param errorBudget 最多收集的错误信息条数
+         * @param sampled     是否抽样
+         * @return
+         */
+        private ErrorMsgCollector validStep(int stepIndex, Object bean, ErrorMsgCollector collector,
+                                            int errorBudget, boolean sampled) {
+            if (!sampled) {
+                return steps[stepIndex].valid(bean, collector, errorBudget);
+            }
+
+            int failedCount = collector == null ? 0 : collector.failedCount;
+            long startNanos = System.nanoTime();
+            collector = steps[stepIndex].valid(bean, collector, errorBudget);
+            sampledNanos.addAndGet(stepIndex, System.nanoTime() - startNanos);
+            sampledCounts.incrementAndGet(stepIndex);
+            if (collector != null && collector.failedCount != failedCount) {
+                sampledFailedCounts.incrementAndGet(stepIndex);
+            }
+            return collector;
+        }
+
+        /**
+         * 撤销本次记录的错误，再按规则的声明顺序重新记录，达到errorBudget后不再记录，与按声明顺序执行时的结果相同
+         *
+         * @param collector                错误信息收集器
+         * @param stepErrors               每条规则未通过时的错误
+         * @param errorFromIndex           本次新增的第一个错误的位置
+         * @param failedCountBefore        执行本步骤之前未通过的次数
+         * @param useDefaultErrorMsgBefore 执行本步骤之前是否使用默认错误信息
+         * @param errorBudget              最多收集的错误信息条数，0表示不限制
+         */
+        private static void addValidErrorsInDeclaredOrder(ErrorMsgCollector collector, ValidError[] stepErrors,
+                                                          int errorFromIndex, int failedCountBefore,
+                                                          boolean useDefaultErrorMsgBefore, int errorBudget) {
+            collector.validErrorList.subList(errorFromIndex, collector.validErrorList.size()).clear();
+            collector.failedCount = failedCountBefore;
+            collector.useDefaultErrorMsgEnable = useDefaultErrorMsgBefore;
+            for (ValidError stepError : stepErrors) {
+                if (stepError == null) {
+                    continue;
+                }
+                collector.addValidError(stepError == DEFAULT_ERROR_MARK ? null : stepError);
+                if (collector.isStopped(errorBudget)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 按"平均耗时/失败率"从小到大重新排序，相同时保持声明顺序。
+         * 失败率加一平滑，从未失败的规则也能按耗时排序
+         */
+        private void reorder() {
+            double[] scores = new double[steps.length];
+            for (int i = 0; i < steps.length; i++) {
+                long sampledCount = sampledCounts.get(i);
+                double averageNanos = sampledCount == 0 ? 0 : (double) sampledNanos.get(i) / sampledCount;
+                double failedRate = (sampledFailedCounts.get(i) + 1.0) / (sampledCount + 2.0);
+                scores[i] = averageNanos / failedRate;
+            }
+
+            order = IntStream.range(0, steps.length).boxed()
+                    .sorted(Comparator.comparingDouble(i -> scores[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+
+    /**
+     * 通知监听器的步骤，只在指定了监听器时才包装，没有监听器时校验过程没有额外的开销
+     */
+    private static final class ListenedStep extends Step {
+        private final Step step;
+
+        private final String ruleId;
+
+        private final ValidListener listener;
+
+        ListenedStep(Step step, String ruleId, ValidListener listener) {
+            this.step = step;
+            this.ruleId = ruleId;
+            this.listener = listener;
+        }
+
+        @Override
+        ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget) {
+            int failedCount = collector == null ? 0 : collector.failedCount;
+            long startNanos = listener.isTimingEnabled() ? System.nanoTime() : 0;
+            collector = step.valid(bean, collector, errorBudget);
+            long elapsedNanos = listener.isTimingEnabled() ? System.nanoTime() - startNanos : ValidListener.NO_TIMING;
+
+            listener.onRule(ruleId, (collector == null ? 0 : collector.failedCount) == failedCount, elapsedNanos);
+            return collector;
+        }
+    }
+
+    /**
+     * 校验对象指定方法返回值的步骤
+     */
+    private static final class RuleStep extends Step {
+        private final Function<Object, Object> methodRef;
+
+        private final Function<Object, Boolean> validFunction;
+
+        /**
+         * 未通过时的错误，为null时使用默认错误信息，构建时计算好，避免每次校验都判断
+         */
+        private final ValidError validError;
+
+        RuleStep(Function<?, ?> methodRef, Function<?, Boolean> validFunction, String errorMsg) {
+            this(methodRef, validFunction, StringUtils.isBlank(errorMsg)
+                    || (validFunction == defaultValidPair.validFunction && defaultValidPair.errorMsg.equals(errorMsg))
+                    ? null
+                    : new ValidError(null, errorMsg));
+        }
+
+        @SuppressWarnings("unchecked")
+        RuleStep(Function<?, ?> methodRef, Function<?, Boolean> validFunction, ValidError validError) {
+            this.methodRef = (Function<Object, Object>) methodRef;
+            this.validFunction = validFunction == null
+                    ? defaultValidPair.validFunction
+                    : (Function<Object, Boolean>) validFunction;
+            this.validError = validError;
+        }
+
+        @Override
+        String getRuleId(String name, int ruleIndex) {
+            return ValidBean.getRuleId(name, validError, ruleIndex);
+        }
+
+        @Override
+        ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget) {
+            Boolean isPass = validFunction.apply(methodRef.apply(bean));
+
+            if (isPass == null) {
+                throw new IllegalArgumentException("校验函数返回值不能为null");
+            }
+
+            if (isPass) {
+                return collector;
+            }
+
+            //未通过校验则记录错误信息
+            if (collector == null) {
+                collector = new ErrorMsgCollector();
+            }
+            collector.addValidError(validError);
+            return collector;
+        }
+    }
+
+    /**
+     * 直接校验对象的步骤，用于不装箱的基本类型校验与自定义规则
+     */
+    private static final class PredicateStep extends Step {
+        private final Predicate<Object> predicate;
+
+        /**
+         * 未通过时的错误，为null时使用默认错误信息
+         */
+        private final ValidError validError;
+
+        @SuppressWarnings("unchecked")
+        PredicateStep(Predicate<?> predicate, String errorMsg) {
+            this.predicate = (Predicate<Object>) predicate;
+            this.validError = StringUtils.isBlank(errorMsg) ? null : new ValidError(null, errorMsg);
+        }
+
+        @Override
+        String getRuleId(String name, int ruleIndex) {
+            return ValidBean.getRuleId(name, validError, ruleIndex);
+        }
+
+        @Override
+        ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget) {
+            if (predicate.test(bean)) {
+                return collector;
+            }
+
+            //未通过校验则记录错误信息
+            if (collector == null) {
+                collector = new ErrorMsgCollector();
+            }
+            collector.addValidError(validError);
+            return collector;
+        }
+    }
+
+    /**
+     * 转换为校验子属性对象的步骤
+     */
+    private static final class MapStep extends Step {
+        private final Function<Object, Object> mapper;
+
+        private final Step[] steps;
+
+        /**
+         * 子属性为空时是否跳过子属性的校验(mapIfPresent)，否则报错
+         */
+        private final boolean skipIfNull;
+
+        @SuppressWarnings("unchecked")
+        MapStep(Function<?, ?> mapper, Step[] steps, boolean skipIfNull) {
+            this.mapper = (Function<Object, Object>) mapper;
+            this.steps = steps;
+            this.skipIfNull = skipIfNull;
+        }
+
+        @Override
+        Step selectGroups(Set<String> activeGroups) {
+            Step[] selectedSteps = ValidationPlan.selectGroups(steps, activeGroups);
+            return selectedSteps == steps ? this : new MapStep(mapper, selectedSteps, skipIfNull);
+        }
+
+        @Override
+        ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget) {
+            Object subParamBean = mapper.apply(bean);
+            if (subParamBean == null) {
+                if (skipIfNull) {
+                    return collector;
+                }
+
+                //与ValidBean的map方法一致，子属性为空时只报这一条错误
+                if (collector == null) {
+                    collector = new ErrorMsgCollector();
+                }
+                collector.fatalValidError = NULL_SUB_BEAN_VALID_ERROR;
+                return collector;
+            }
+            return validSteps(steps, subParamBean, collector, errorBudget);
+        }
+    }
+
+    /**
+     * 条件分支的步骤，条件不满足时不执行分支中的任何步骤
+     */
+    private static final class ConditionStep extends Step {
+        private final Predicate<Object> condition;
+
+        private final Step[] steps;
+
+        @SuppressWarnings("unchecked")
+        ConditionStep(Predicate<?> condition, Step[] steps) {
+            this.condition = (Predicate<Object>) condition;
+            this.steps = steps;
+        }
+
+        @Override
+        Step selectGroups(Set<String> activeGroups) {
+            Step[] selectedSteps = ValidationPlan.selectGroups(steps, activeGroups);
+            return selectedSteps == steps ? this : new ConditionStep(condition, selectedSteps);
+        }
+
+        @Override
+        ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget) {
+            return condition.test(bean) ? validSteps(steps, bean, collector, errorBudget) : collector;
+        }
+    }
+
+    /**
+     * 校验集合中每个元素的步骤
+     */
+    private static final class EachStep extends Step {
+        private final Function<Object, Collection<?>> methodRef;
+
+        private final Step[] steps;
+
+        /**
+         * 元素个数达到该值时并行校验，0表示不并行
+         */
+        private final int parallelThreshold;
+
+        @SuppressWarnings("unchecked")
+        EachStep(Function<?, ? extends Collection<?>> methodRef, Step[] steps, int parallelThreshold) {
+            this.methodRef = (Function<Object, Collection<?>>) methodRef;
+            this.steps = steps;
+            this.parallelThreshold = parallelThreshold;
+        }
+
+        @Override
+        Step selectGroups(Set<String> activeGroups) {
+            Step[] selectedSteps = ValidationPlan.selectGroups(steps, activeGroups);
+            return selectedSteps == steps ? this : new EachStep(methodRef, selectedSteps, parallelThreshold);
+        }
+
+        @Override
+        ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget) {
+            return validEach(steps, methodRef.apply(bean), parallelThreshold, collector, errorBudget);
+        }
+    }
+
+    /**
+     * 校验Map中每个value的步骤
+     */
+    private static final class EachValueStep extends Step {
+        private final Function<Object, Map<?, ?>> methodRef;
+
+        private final Step[] steps;
+
+        @SuppressWarnings("unchecked")
+        EachValueStep(Function<?, ? extends Map<?, ?>> methodRef, Step[] steps) {
+            this.methodRef = (Function<Object, Map<?, ?>>) methodRef;
+            this.steps = steps;
+        }
+
+        @Override
+        Step selectGroups(Set<String> activeGroups) {
+            Step[] selectedSteps = ValidationPlan.selectGroups(steps, activeGroups);
+            return selectedSteps == steps ? this : new EachValueStep(methodRef, selectedSteps);
+        }
+
+        @Override
+        ErrorMsgCollector valid(Object bean, ErrorMsgCollector collector, int errorBudget) {
+            return validEachValue(steps, methodRef.apply(bean), collector, errorBudget);
+        }
+    }
+
+    /**
+     * 错误信息收集器，只在出现第一个错误时才创建
+     */
+    private static final class ErrorMsgCollector {
+
+        /**
+         * 是否使用默认错误信息
+         */
+        private boolean useDefaultErrorMsgEnable;
+
+        /**
+         * 自定义错误列表
+         */
+        private final List<ValidError> validErrorList = new ArrayList<>();
+
+        /**
+         * 导致校验无法继续的错误，存在时忽略其它错误
+         */
+        private ValidError fatalValidError;
+
+        /**
+         * 未通过的次数，包括使用默认错误信息的
+         */
+        private int failedCount;
+
+        /**
+         * @param validError 错误，为空时表示使用默认错误信息
+         */
+        void addValidError(ValidError validError) {
+            failedCount++;
+            if (validError == null) {
+                useDefaultErrorMsgEnable = true;
+            } else {
+                validErrorList.add(validError);
+            }
+        }
+
+        /**
+         * 是否不再执行剩余的校验步骤
+         *
+         * @param errorBudget 最多收集的错误信息条数，0表示不限制
+         * @return
+         */
+        boolean isStopped(int errorBudget) {
+            if (fatalValidError != null) {
+                return true;
+            }
+            int errorCount = useDefaultErrorMsgEnable ? validErrorList.size() + 1 : validErrorList.size();
+            return errorBudget > 0 && errorCount >= errorBudget;
+        }
+
+        List<ValidError> getValidErrors() {
+            if (fatalValidError != null) {
+                return Collections.singletonList(fatalValidError);
+            }
+
+            if (!useDefaultErrorMsgEnable) {
+                return validErrorList;
+            }
+
+            //默认错误信息放在开头
+            List<ValidError> validErrors = new ArrayList<>(validErrorList.size() + 1);
+            validErrors.add(DEFAULT_VALID_ERROR);
+            validErrors.addAll(validErrorList);
+            return validErrors;
+        }
+    }
+
+    /**
+     * 校验计划的构建器，方法与ValidBean保持一致。构建器本身不是线程安全的，build之后的ValidationPlan才是
+     *
+     * @param <T> 当前被校验的对象类型
+     */
+    public static final class Builder<T> {
+
+        /**
+         * 父构建器，根构建器为null
+         */
+        private final Builder<?> parentBuilder;
+
+        /**
+         * 把当前构建器编译后的校验步骤包装为父构建器中的一个步骤(map、each、eachValue)，根构建器为null
+         */
+        private final Function<Step[], Step> scopeStepFactory;
+
+        /**
+         * when创建的构建器的条件，用于otherwise，其它构建器为null
+         */
+        private Predicate<T> condition;
+
+        /**
+         * 校验步骤，元素为RuleStep或者子属性的构建器
+         */
+        private final List<Object> stepList = new ArrayList<>();
+
+        /**
+         * 校验未通过时创建异常的工厂，只有根构建器的有效
+         */
+        private ValidExceptionFactory exceptionFactory = ValidExceptionFactory.FULL_STACK_TRACE;
+
+        /**
+         * 最多收集的错误信息条数，只有根构建器的有效
+         */
+        private int errorBudget;
+
+        /**
+         * 校验过程的监听器，只有根构建器的有效
+         */
+        private ValidListener listener;
+
+        /**
+         * 校验计划的名称，用于通知监听器时的规则标识，只有根构建器的有效
+         */
+        private String name;
+
+        /**
+         * 是否按耗时与失败率自适应排序，只有根构建器的有效
+         */
+        private boolean adaptiveOrderEnable;
+
+        /**
+         * 通过pin固定位置的规则
+         */
+        private final Set<Object> pinnedStepSet = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private Builder(Builder<?> parentBuilder, Function<Step[], Step> scopeStepFactory) {
+            this.parentBuilder = parentBuilder;
+            this.scopeStepFactory = scopeStepFactory;
+        }
+
+        /**
+         * 回到父对象的校验
+         *
+         * @param <PT> 父类型的泛型类型
+         * @return
+         */
+        @SuppressWarnings("unchecked")
+        public <PT> Builder<PT> parent() {
+            if (parentBuilder == null) {
+                throw new ValidatedException("当前不是子属性的校验，没有parent");
+            }
+            return (Builder<PT>) parentBuilder;
+        }
+
+        /**
+         * 转换为校验另一个对象
+         *
+         * @param mapper
+         * @param <ST>
+         * @return
+         */
+        public <ST> Builder<ST> map(Function<T, ST> mapper) {
+            Objects.requireNonNull(mapper);
+            return addScope(steps -> new MapStep(mapper, steps, false));
+        }
+
+        /**
+         * 转换为校验另一个对象，子属性为空时跳过子属性的所有校验，而不是像map一样报错
+         *
+         * @param mapper
+         * @param <ST>
+         * @return
+         */
+        public <ST> Builder<ST> mapIfPresent(Function<T, ST> mapper) {
+            Objects.requireNonNull(mapper);
+            return addScope(steps -> new MapStep(mapper, steps, true));
+        }
+
+        /**
+         * 条件分支：之后的校验只在对象满足条件时执行，通过otherwise切换到不满足条件时的校验，通过parent回到当前对象。
+         * 条件不满足时分支中的方法引用与校验函数都不会执行
+         *
+         * @param condition 条件
+         * @return
+         */
+        public Builder<T> when(Predicate<T> condition) {
+            Objects.requireNonNull(condition);
+            Builder<T> whenBuilder = addScope(steps -> new ConditionStep(condition, steps));
+            whenBuilder.condition = condition;
+            return whenBuilder;
+        }
+
+        /**
+         * 分组：之后的规则属于指定的分组，只在通过forGroups选择了其中一个分组时才执行，通过parent回到当前对象。
+         * 没有分组的规则总是执行
+         *
+         * @param groups 分组，比如"create"、"update"
+         * @return
+         */
+        public Builder<T> group(String... groups) {
+            if (groups.length == 0) {
+                throw new IllegalArgumentException("分组不能为空");
+            }
+            Set<String> groupSet = new HashSet<>(Arrays.asList(groups));
+            return addScope(steps -> new GroupStep(groupSet, steps));
+        }
+
+        /**
+         * 切换到when的条件不满足时的校验，只能在when返回的构建器上调用
+         *
+         * @return
+         */
+        public Builder<T> otherwise() {
+            if (condition == null) {
+                throw new ValidatedException("只能在when之后调用otherwise");
+            }
+            Predicate<T> otherwiseCondition = condition.negate();
+            return parentBuilder.addScope(steps -> new ConditionStep(otherwiseCondition, steps));
+        }
+
+        /**
+         * 转换为校验集合中的每个元素，之后声明的校验规则对每个元素执行，通过parent回到当前对象。
+         * 错误信息以元素位置开头，比如"[3]商户id不能为空"；集合为null时不校验，需要时使用notEmpty
+         *
+         * @param methodRef 获取集合的方法引用
+         * @param <E>       元素类型
+         * @return
+         */
+        public <E> Builder<E> each(Function<T, ? extends Collection<E>> methodRef) {
+            return each(methodRef, 0);
+        }
+
+        /**
+         * 转换为校验集合中的每个元素，元素个数达到parallelThreshold且支持随机访问的List并行校验，错误信息仍按位置顺序排列
+         *
+         * @param methodRef         获取集合的方法引用
+         * @param parallelThreshold 元素个数达到该值时并行校验，0表示不并行
+         * @param <E>               元素类型
+         * @return
+         */
+        public <E> Builder<E> each(Function<T, ? extends Collection<E>> methodRef, int parallelThreshold) {
+            Objects.requireNonNull(methodRef);
+            if (parallelThreshold < 0) {
+                throw new IllegalArgumentException("并行校验的元素个数不能小于0");
+            }
+            return addScope(steps -> new EachStep(methodRef, steps, parallelThreshold));
+        }
+
+        /**
+         * 转换为校验Map中的每个value，错误信息以key开头，比如"[k1]商户id不能为空"；Map为null时不校验
+         *
+         * @param methodRef 获取Map的方法引用
+         * @param <V>       value类型
+         * @return
+         */
+        public <V> Builder<V> eachValue(Function<T, ? extends Map<?, V>> methodRef) {
+            Objects.requireNonNull(methodRef);
+            return addScope(steps -> new EachValueStep(methodRef, steps));
+        }
+
+        private <ST> Builder<ST> addScope(Function<Step[], Step> scopeStepFactory) {
+            Builder<ST> subBuilder = new Builder<>(this, scopeStepFactory);
+            stepList.add(subBuilder);
+            return subBuilder;
+        }
+
+        /**
+         * 指定方法引用返回值需要为空
+         *
+         * @param methodRef 方法引用
+         * @return
+         */
+        public Builder<T> empty(Function<T, Object> methodRef) {
+            return valid(methodRef, ValidBean.needEmptyValidPair.validFunction, ValidBean.needEmptyValidPair.errorMsg);
+        }
+
+        /**
+         * 指定方法引用返回值需要为空
+         *
+         * @param methodRef      方法引用
+         * @param customErrorMsg 自定义错误信息
+         * @return
+         */
+        public Builder<T> empty(Function<T, Object> methodRef, String customErrorMsg) {
+            return valid(methodRef, ValidBean.needEmptyValidPair.validFunction, customErrorMsg);
+        }
+
+        /**
+         * 指定方法引用返回值需要为空，未通过校验时使用错误码与消息模板
+         *
+         * @param methodRef   方法引用
+         * @param errorCode   错误码
+         * @param msgTemplate 消息模板(MessageFormat格式)
+         * @param args        模板参数
+         * @return
+         */
+        public Builder<T> empty(Function<T, Object> methodRef, String errorCode, String msgTemplate, Object... args) {
+            return valid(methodRef, ValidBean.needEmptyValidPair.validFunction, errorCode, msgTemplate, args);
+        }
+
+        /**
+         * 指定方法引用返回值不能为空
+         *
+         * @param methodRef 方法引用
+         * @return
+         */
+        public Builder<T> notEmpty(Function<T, Object> methodRef) {
+            return valid(methodRef, defaultValidPair.validFunction, defaultValidPair.errorMsg);
+        }
+
+        /**
+         * 指定方法引用返回值不能为空
+         *
+         * @param methodRef      方法引用
+         * @param customErrorMsg 自定义错误信息
+         * @return
+         */
+        public Builder<T> notEmpty(Function<T, Object> methodRef, String customErrorMsg) {
+            return valid(methodRef, defaultValidPair.validFunction, customErrorMsg);
+        }
+
+        /**
+         * 指定方法引用返回值不能为空，未通过校验时使用错误码与消息模板
+         *
+         * @param methodRef   方法引用
+         * @param errorCode   错误码
+         * @param msgTemplate 消息模板(MessageFormat格式)
+         * @param args        模板参数
+         * @return
+         */
+        public Builder<T> notEmpty(Function<T, Object> methodRef, String errorCode, String msgTemplate, Object... args) {
+            return valid(methodRef, defaultValidPair.validFunction, errorCode, msgTemplate, args);
+        }
+
+        /**
+         * 校验指定方法返回值(使用默认校验函数与默认错误信息)
+         *
+         * @param methodRef 被校验的bean的方法引用
+         * @return
+         */
+        public Builder<T> valid(Function<T, Object> methodRef) {
+            return valid(methodRef, null, null);
+        }
+
+        /**
+         * 校验指定方法返回值(使用默认校验函数)
+         *
+         * @param methodRef 被校验的bean的方法引用
+         * @param errorMsg  自定义错误信息(如果为空则使用默认错误信息)
+         * @return
+         */
+        public Builder<T> valid(Function<T, Object> methodRef, String errorMsg) {
+            return valid(methodRef, null, errorMsg);
+        }
+
+        /**
+         * 校验指定方法返回值
+         *
+         * @param methodRef     被校验的bean的方法引用
+         * @param validFunction 自定义校验函数
+         * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+         * @return
+         */
+        public <R> Builder<T> valid(Function<T, R> methodRef, ValidBean.ValidFunction<R> validFunction, String errorMsg) {
+            Objects.requireNonNull(methodRef);
+            stepList.add(new RuleStep(methodRef, validFunction, errorMsg));
+            return this;
+        }
+
+        /**
+         * 校验指定方法返回值，未通过校验时使用错误码与消息模板
+         *
+         * @param methodRef     被校验的bean的方法引用
+         * @param validFunction 自定义校验函数，为空时使用默认校验函数
+         * @param errorCode     错误码
+         * @param msgTemplate   消息模板(MessageFormat格式)，为空时使用默认错误信息(保留错误码)
+         * @param args          模板参数
+         * @return
+         */
+        public <R> Builder<T> valid(Function<T, R> methodRef, ValidBean.ValidFunction<R> validFunction,
+                                    String errorCode, String msgTemplate, Object... args) {
+            Objects.requireNonNull(methodRef);
+            //模板为空时与不带错误码的规则一样使用默认错误信息，empty的默认错误信息是"属性需要为空"
+            String defaultErrorMsg = validFunction == ValidBean.needEmptyValidPair.validFunction ? ValidBean.needEmptyValidPair.errorMsg : defaultValidPair.errorMsg;
+            ValidError validError = StringUtils.isBlank(msgTemplate)
+                    ? new ValidError(errorCode, defaultErrorMsg)
+                    : new ValidError(errorCode, msgTemplate, args);
+            stepList.add(new RuleStep(methodRef, validFunction, validError));
+            return this;
+        }
+
+        /**
+         * 校验指定方法返回的int值，获取值与校验过程都不会装箱
+         *
+         * @param methodRef     被校验的bean的方法引用
+         * @param validFunction 校验函数，返回true表示通过校验
+         * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+         * @return
+         */
+        public Builder<T> validInt(ToIntFunction<T> methodRef, IntPredicate validFunction, String errorMsg) {
+            Objects.requireNonNull(methodRef);
+            Objects.requireNonNull(validFunction);
+            return validBoolean(bean -> validFunction.test(methodRef.applyAsInt(bean)), errorMsg);
+        }
+
+        /**
+         * 校验指定方法返回的long值，获取值与校验过程都不会装箱
+         *
+         * @param methodRef     被校验的bean的方法引用
+         * @param validFunction 校验函数，返回true表示通过校验
+         * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+         * @return
+         */
+        public Builder<T> validLong(ToLongFunction<T> methodRef, LongPredicate validFunction, String errorMsg) {
+            Objects.requireNonNull(methodRef);
+            Objects.requireNonNull(validFunction);
+            return validBoolean(bean -> validFunction.test(methodRef.applyAsLong(bean)), errorMsg);
+        }
+
+        /**
+         * 校验指定方法返回的double值，获取值与校验过程都不会装箱
+         *
+         * @param methodRef     被校验的bean的方法引用
+         * @param validFunction 校验函数，返回true表示通过校验
+         * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+         * @return
+         */
+        public Builder<T> validDouble(ToDoubleFunction<T> methodRef, DoublePredicate validFunction, String errorMsg) {
+            Objects.requireNonNull(methodRef);
+            Objects.requireNonNull(validFunction);
+            return validBoolean(bean -> validFunction.test(methodRef.applyAsDouble(bean)), errorMsg);
+        }
+
+        /**
+         * 校验指定方法返回的boolean值需要为true，也可以是直接校验对象的自定义规则，校验过程不会装箱
+         *
+         * @param validFunction 返回boolean的方法引用或者自定义校验函数，返回true表示通过校验
+         * @param errorMsg      自定义错误信息(如果为空则使用默认错误信息)
+         * @return
+         */
+        public Builder<T> validBoolean(Predicate<T> validFunction, String errorMsg) {
+            Objects.requireNonNull(validFunction);
+            stepList.add(new PredicateStep(validFunction, errorMsg));
+            return this;
+        }
+
+        /**
+         * 设置校验未通过时创建异常的工厂，对整个校验计划生效
+         *
+         * @param exceptionFactory 比如不记录堆栈的ValidExceptionFactory.STACKLESS
+         * @return
+         */
+        public Builder<T> exceptionFactory(ValidExceptionFactory exceptionFactory) {
+            Objects.requireNonNull(exceptionFactory);
+            getRootBuilder().exceptionFactory = exceptionFactory;
+            return this;
+        }
+
+        /**
+         * 遇到第一个未通过的校验就停止，不再执行剩余的校验步骤
+         *
+         * @return
+         */
+        public Builder<T> failFast() {
+            return errorBudget(1);
+        }
+
+        /**
+         * 收集到errorBudget条错误信息后就停止，不再执行剩余的校验步骤
+         *
+         * @param errorBudget 最多收集的错误信息条数，0表示不限制
+         * @return
+         */
+        public Builder<T> errorBudget(int errorBudget) {
+            if (errorBudget < 0) {
+                throw new IllegalArgumentException("错误信息条数不能小于0");
+            }
+            getRootBuilder().errorBudget = errorBudget;
+            return this;
+        }
+
+        /**
+         * 自适应排序：抽样统计每条规则的耗时与失败率，定期重新排序相互独立的规则，让便宜又容易失败的规则先执行。
+         * 只在failFast或者errorBudget时有效，否则所有规则都要执行，排序没有意义。
+         * <p>
+         * 只有连续的notEmpty、empty、valid等规则之间会重新排序，map、each、when、group等作用域以及pin的规则保持原来的位置。
+         * 报告的错误与按声明顺序执行时相同：达到错误条数限制时补充执行声明在最后一个失败规则之前、还没有执行的规则，再按声明顺序取最先失败的规则。
+         * 所以按声明顺序会执行的规则仍然都会执行，排序不会减少执行的规则，只在排序后的顺序与声明顺序一致时没有额外开销
+         *
+         * @return
+         */
+        public Builder<T> adaptiveOrder() {
+            getRootBuilder().adaptiveOrderEnable = true;
+            return this;
+        }
+
+        /**
+         * 固定上一条规则的位置，自适应排序时它之前的规则总在它之前执行，之后的规则总在它之后执行。
+         * 用于依赖前面的规则已经通过的自定义校验函数
+         *
+         * @return
+         */
+        public Builder<T> pin() {
+            if (stepList.isEmpty() || stepList.get(stepList.size() - 1) instanceof Builder) {
+                throw new ValidatedException("pin只能在校验规则之后调用");
+            }
+            pinnedStepSet.add(stepList.get(stepList.size() - 1));
+            return this;
+        }
+
+        /**
+         * 构建不可变的校验计划，可以在调用链的任意位置调用
+         *
+         * @return
+         */
+        @SuppressWarnings("unchecked")
+        public <P> ValidationPlan<P> build() {
+            Builder<?> rootBuilder = getRootBuilder();
+            boolean adaptiveOrderEnable = rootBuilder.adaptiveOrderEnable && rootBuilder.errorBudget > 0;
+            return new ValidationPlan<>(rootBuilder.compileSteps(rootBuilder.listener, adaptiveOrderEnable, new int[1]), Collections.emptySet(),
+                    new ConcurrentHashMap<>(), rootBuilder.exceptionFactory, rootBuilder.errorBudget, rootBuilder.listener);
+        }
+
+        /**
+         * 设置校验过程的监听器，对整个校验计划生效
+         *
+         * @param listener 比如统计每条规则耗时与失败次数的ValidMetrics，为null时不通知
+         * @return
+         */
+        public Builder<T> listener(ValidListener listener) {
+            Builder<?> rootBuilder = getRootBuilder();
+            rootBuilder.listener = listener;
+            if (listener != null && rootBuilder.name == null) {
+                rootBuilder.name = ValidBean.getCallSite();
+            }
+            return this;
+        }
+
+        /**
+         * 设置校验计划的名称，通知监听器时规则标识为"名称#声明位置"，比如"order#3"，用于区分共用一个ValidMetrics的不同校验计划。
+         * 没有指定名称时以调用listener的代码位置作为名称
+         *
+         * @param name 校验计划的名称，比如"order"
+         * @return
+         */
+        public Builder<T> name(String name) {
+            getRootBuilder().name = Objects.requireNonNull(name);
+            return this;
+        }
+
+        private Builder<?> getRootBuilder() {
+            Builder<?> rootBuilder = this;
+            while (rootBuilder.parentBuilder != null) {
+                rootBuilder = rootBuilder.parentBuilder;
+            }
+            return rootBuilder;
+        }
+
+        /**
+         * 把当前构建器的校验步骤编译为数组
+         *
+         * @param listener            校验过程的监听器，不为null时为每条规则包装通知监听器的步骤
+         * @param adaptiveOrderEnable 是否把连续的独立规则包装为自适应排序的步骤
+         * @param ruleCounter         已经编译的规则个数，按声明顺序为每条规则分配规则标识
+         * @return
+         */
+        private Step[] compileSteps(ValidListener listener, boolean adaptiveOrderEnable, int[] ruleCounter) {
+            List<Step> compiledStepList = new ArrayList<>(stepList.size());
+            List<Step> independentStepList = new ArrayList<>();
+            for (Object step : stepList) {
+                Step compiledStep;
+                if (step instanceof Builder) {
+                    Builder<?> subBuilder = (Builder<?>) step;
+                    compiledStep = subBuilder.scopeStepFactory.apply(subBuilder.compileSteps(listener, adaptiveOrderEnable, ruleCounter));
+                } else {
+                    int ruleIndex = ruleCounter[0]++;
+                    String ruleId = listener == null ? null : ((Step) step).getRuleId(getRootBuilder().name, ruleIndex);
+                    compiledStep = ruleId != null ? new ListenedStep((Step) step, ruleId, listener) : (Step) step;
+                }
+
+                if (adaptiveOrderEnable && !(step instanceof Builder) && !pinnedStepSet.contains(step)) {
+                    independentStepList.add(compiledStep);
+                    continue;
+                }
+                addIndependentSteps(compiledStepList, independentStepList);
+                compiledStepList.add(compiledStep);
+            }
+            addIndependentSteps(compiledStepList, independentStepList);
+            return compiledStepList.toArray(new Step[0]);
+        }
+
+        /**
+         * 把连续的独立规则加入编译后的步骤，多于一条时包装为自适应排序的步骤
+         *
+         * @param compiledStepList    编译后的步骤
+         * @param independentStepList 连续的独立规则，加入后清空
+         */
+        private static void addIndependentSteps(List<Step> compiledStepList, List<Step> independentStepList) {
+            if (independentStepList.size() == 1) {
+                compiledStepList.add(independentStepList.get(0));
+            } else if (independentStepList.size() > 1) {
+                compiledStepList.add(new AdaptiveStep(independentStepList.toArray(new Step[0])));
+            }
+            independentStepList.clear();
+        }
+    }
+}
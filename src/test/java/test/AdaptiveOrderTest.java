@@ -0,0 +1,70 @@
+package test;
+
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 自适应排序：无论当前的执行顺序如何，报告的错误都与按声明顺序执行时相同
+ */
+public class AdaptiveOrderTest {
+
+    private static final int RUN_COUNT = 40000;
+
+    private static volatile long sink;
+
+    /**
+     * 耗时的校验，使自适应排序把它排到后面
+     */
+    private static boolean slowCheck(int value) {
+        long sum = 0;
+        for (int i = 0; i < 2000; i++) {
+            sum += i * value;
+        }
+        sink = sum;
+        return value != 0;
+    }
+
+    private static ValidationPlan.Builder<int[]> newBuilder() {
+        return ValidationPlan.<int[]>builder()
+                .validBoolean(values -> slowCheck(values[0]), "规则0未通过")
+                .notEmpty(values -> values[1] == 0 ? null : values)
+                .validBoolean(values -> values[2] != 0, "规则2未通过")
+                .notEmpty(values -> values[3] == 0 ? null : values)
+                .validBoolean(values -> values[4] != 0, "规则4未通过");
+    }
+
+    private static int[] randomValues(Random random) {
+        int[] values = new int[5];
+        for (int i = 0; i < 4; i++) {
+            values[i] = random.nextInt(10) < 3 ? 0 : 1;
+        }
+
+        //最后一条规则便宜又容易失败，会被排到前面
+        values[4] = random.nextInt(10) < 9 ? 0 : 1;
+        return values;
+    }
+
+    @Test
+    public void errorsMatchDeclarationOrder() {
+        for (int errorBudget = 1; errorBudget <= 3; errorBudget++) {
+            ValidationPlan<int[]> declaredPlan = newBuilder().errorBudget(errorBudget).build();
+            ValidationPlan<int[]> adaptivePlan = newBuilder().errorBudget(errorBudget).adaptiveOrder().build();
+
+            Random random = new Random(errorBudget);
+            for (int i = 0; i < RUN_COUNT; i++) {
+                int[] values = randomValues(random);
+                assertEquals(declaredPlan.getErrorMsg(values), adaptivePlan.getErrorMsg(values));
+            }
+        }
+    }
+
+    @Test
+    public void adaptiveOrderWithoutErrorBudgetReportsAllErrors() {
+        ValidationPlan<int[]> plan = newBuilder().adaptiveOrder().build();
+        assertEquals("属性不能为空,规则0未通过,规则2未通过,规则4未通过", plan.getErrorMsg(new int[5]));
+    }
+}
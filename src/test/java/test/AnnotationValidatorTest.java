@@ -0,0 +1,120 @@
+package test;
+
+import com.bean.valid.annotation.Empty;
+import com.bean.valid.annotation.NotEmpty;
+import com.bean.valid.annotation.Valid;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidatedException;
+import com.bean.valid.util.AnnotationValidator;
+import com.bean.valid.util.ValidBean;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 注解校验：规则从父类到子类排列，字段与getter上的同一种注解只添加一次规则，无法创建校验函数时保留原因
+ */
+public class AnnotationValidatorTest {
+
+    public static class Order {
+        @NotEmpty(errorMsg = "订单号不能为空")
+        private String orderNo;
+
+        @Empty(errorMsg = "备注需要为空")
+        private String remark;
+
+        @NotEmpty(errorMsg = "订单号不能为空")
+        public String getOrderNo() {
+            return orderNo;
+        }
+
+        public String getRemark() {
+            return remark;
+        }
+    }
+
+    public static class VipOrder extends Order {
+        private String level;
+
+        @Override
+        @NotEmpty(errorMsg = "订单号不能为空")
+        public String getOrderNo() {
+            return super.getOrderNo();
+        }
+
+        @Valid(rule = LevelRule.class, errorMsg = "等级错误")
+        public String getLevel() {
+            return level;
+        }
+    }
+
+    public static class LevelRule implements ValidBean.ValidFunction<Object> {
+        @Override
+        public Boolean apply(Object level) {
+            return "vip".equals(level);
+        }
+    }
+
+    public static class BrokenRule implements ValidBean.ValidFunction<Object> {
+        public BrokenRule() {
+            throw new IllegalStateException("无法初始化");
+        }
+
+        @Override
+        public Boolean apply(Object value) {
+            return true;
+        }
+    }
+
+    public static class BrokenRuleBean {
+        @Valid(rule = BrokenRule.class)
+        private String value;
+    }
+
+    private static String valid(Object bean) {
+        try {
+            AnnotationValidator.valid(bean);
+            return null;
+        } catch (ParamException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void fieldAndGetterAnnotationsAreAddedOnce() {
+        Order order = new Order();
+        order.remark = "备注";
+        assertEquals("订单号不能为空,备注需要为空", valid(order));
+    }
+
+    @Test
+    public void overriddenGetterAnnotationIsAddedOnce() {
+        VipOrder order = new VipOrder();
+        order.level = "normal";
+        assertEquals("订单号不能为空,等级错误", valid(order));
+
+        ((Order) order).orderNo = "1";
+        order.level = "vip";
+        assertNull(valid(order));
+    }
+
+    @Test
+    public void planIsCachedPerClass() {
+        assertSame(AnnotationValidator.getPlan(VipOrder.class), AnnotationValidator.getPlan(VipOrder.class));
+        assertEquals("订单号不能为空", AnnotationValidator.getPlan(Order.class).getErrorMsg(new Order()));
+    }
+
+    @Test
+    public void ruleCreationFailureKeepsCause() {
+        try {
+            AnnotationValidator.valid(new BrokenRuleBean());
+            fail();
+        } catch (ValidatedException e) {
+            assertTrue(e.getMessage().startsWith("无法创建校验函数"));
+            assertTrue(e.getCause() instanceof InvocationTargetException);
+            assertEquals("无法初始化", e.getCause().getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package test;
+
+import bean.GenericData1;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidMetrics;
+import com.bean.valid.util.ValidResult;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * completeAsync：异步校验先完成或后完成都不影响错误信息的顺序，结果与complete一致
+ */
+public class AsyncCompleteTest {
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+
+    private static GenericData1 newData(String startDate, String endDate) {
+        GenericData1 data = new GenericData1();
+        data.setStartDate(startDate);
+        data.setEndDate(endDate);
+        return data;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static ValidBean<GenericData1> newValidBean(CountDownLatch lastAsyncDone) {
+        return ValidBean.ofLazy(newData(null, null))
+                .validAsync(GenericData1::getStartDate, startDate -> !await(lastAsyncDone), "异步规则0未通过")
+                .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                .validAsync(GenericData1::getEndDate, endDate -> {
+                    lastAsyncDone.countDown();
+                    return false;
+                }, "异步规则2未通过")
+                .notEmpty(GenericData1::getEndDate, "结束时间不能为空");
+    }
+
+    @Test
+    public void errorsAreInDeclarationOrderWhenAsyncRulesFinishOutOfOrder() {
+        ValidResult<GenericData1> validResult = newValidBean(new CountDownLatch(1)).completeAsync(EXECUTOR).join();
+
+        assertFalse(validResult.isPass());
+        assertEquals("异步规则0未通过,开始时间不能为空,异步规则2未通过,结束时间不能为空", validResult.getErrorMsg());
+    }
+
+    @Test
+    public void asyncResultMatchesComplete() {
+        ValidResult<GenericData1> validResult = newValidBean(new CountDownLatch(1)).completeAsync(EXECUTOR).join();
+
+        //complete中validAsync与valid相同，在当前线程按顺序执行
+        CountDownLatch lastAsyncDone = new CountDownLatch(1);
+        lastAsyncDone.countDown();
+        try {
+            newValidBean(lastAsyncDone).complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals(validResult.getErrorMsg(), e.getMessage());
+        }
+    }
+
+    @Test
+    public void passingChainCompletesWithPass() {
+        ValidResult<GenericData1> validResult = ValidBean.ofLazy(newData("2019-10-01", "2019-10-02"))
+                .validAsync(GenericData1::getStartDate, startDate -> true, "不会记录")
+                .notEmpty(GenericData1::getEndDate)
+                .completeAsync(EXECUTOR)
+                .join();
+
+        assertTrue(validResult.isPass());
+        assertNull(validResult.getErrorMsg());
+        validResult.throwExceptionIfExitsErrorMsg();
+    }
+
+    @Test
+    public void ruleExceptionCompletesExceptionally() {
+        ValidMetrics metrics = new ValidMetrics();
+        IllegalStateException ruleException = new IllegalStateException("校验函数异常");
+        try {
+            ValidBean.ofLazy(newData(null, null))
+                    .name("async")
+                    .listener(metrics)
+                    .validAsync(GenericData1::getStartDate, startDate -> {
+                        throw ruleException;
+                    }, "不会记录")
+                    .completeAsync(EXECUTOR)
+                    .join();
+            fail();
+        } catch (CompletionException e) {
+            assertSame(ruleException, e.getCause());
+        }
+        assertEquals(1, metrics.getCompleteMetrics().getFailCount());
+    }
+
+    @Test
+    public void listenerIsNotifiedOnComplete() {
+        ValidMetrics metrics = new ValidMetrics();
+        newValidBean(new CountDownLatch(1))
+                .name("async")
+                .listener(metrics)
+                .completeAsync(EXECUTOR)
+                .join();
+
+        assertEquals(1, metrics.getCompleteMetrics().getFailCount());
+        assertEquals(1, metrics.getRuleMetrics().get("async#0").getFailCount());
+        assertEquals(1, metrics.getRuleMetrics().get("async#3").getFailCount());
+    }
+
+    @Test
+    public void eagerChainCompletesImmediately() {
+        ValidResult<GenericData1> validResult = ValidBean.of(newData("2019-10-01", "2019-10-02"))
+                .validAsync(GenericData1::getStartDate, startDate -> true, "不会记录")
+                .completeAsync(EXECUTOR)
+                .join();
+        assertTrue(validResult.isPass());
+    }
+}
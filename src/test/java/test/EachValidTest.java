@@ -0,0 +1,158 @@
+package test;
+
+import bean.GenericData2;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * each、eachValue：错误信息以元素位置或者key开头，集合为null时不校验，分支不满足时不获取集合
+ */
+public class EachValidTest {
+
+    private static final ValidationPlan<GenericData2> ELEMENT_PLAN = ValidationPlan.<GenericData2>builder()
+            .notEmpty(GenericData2::getName, "名字不能为空")
+            .notEmpty(GenericData2::getSex, "性别不能为空")
+            .build();
+
+    private static GenericData2 newData(String name, String sex) {
+        GenericData2 data = new GenericData2();
+        data.setName(name);
+        data.setSex(sex);
+        return data;
+    }
+
+    private static String validLazy(List<GenericData2> list) {
+        try {
+            ValidBean.ofLazy(list).each(Function.identity(), ELEMENT_PLAN).complete();
+            return null;
+        } catch (ParamException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void errorsStartWithElementIndex() {
+        List<GenericData2> list = Arrays.asList(newData("名字", "男"), newData(null, "男"), newData(null, null));
+        assertEquals("[1]名字不能为空,[2]名字不能为空,[2]性别不能为空", validLazy(list));
+    }
+
+    @Test
+    public void planEachReportsTheSameErrors() {
+        ValidationPlan<List<GenericData2>> plan = ValidationPlan.<List<GenericData2>>builder()
+                .<GenericData2>each(Function.identity())
+                .notEmpty(GenericData2::getName, "名字不能为空")
+                .notEmpty(GenericData2::getSex, "性别不能为空")
+                .build();
+
+        List<GenericData2> list = Arrays.asList(newData("名字", "男"), newData(null, "男"), newData(null, null));
+        assertEquals(validLazy(list), plan.getErrorMsg(list));
+    }
+
+    @Test
+    public void parallelEachKeepsElementOrder() {
+        List<GenericData2> list = new ArrayList<>();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            boolean failed = i % 7 == 0;
+            list.add(newData(failed ? null : "名字", "男"));
+            if (failed) {
+                expected.append(expected.length() == 0 ? "" : ",").append('[').append(i).append("]名字不能为空");
+            }
+        }
+
+        try {
+            ValidBean.ofLazy(list).each(Function.identity(), ELEMENT_PLAN, 16).complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals(expected.toString(), e.getMessage());
+        }
+    }
+
+    @Test
+    public void nullCollectionIsNotValidated() {
+        Map<String, List<GenericData2>> holder = new LinkedHashMap<>();
+        ValidBean.ofLazy(holder).each(map -> map.get("list"), ELEMENT_PLAN).complete();
+        ValidBean.of(holder).each(map -> map.get("list"), ELEMENT_PLAN).complete();
+    }
+
+    @Test
+    public void eachValueErrorsStartWithKey() {
+        Map<String, GenericData2> map = new LinkedHashMap<>();
+        map.put("k1", newData("名字", "男"));
+        map.put("k2", newData(null, "男"));
+        map.put("k3", newData("名字", null));
+
+        try {
+            ValidBean.ofLazy(map).eachValue(Function.identity(), ELEMENT_PLAN).complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("[k2]名字不能为空,[k3]性别不能为空", e.getMessage());
+        }
+
+        ValidationPlan<Map<String, GenericData2>> plan = ValidationPlan.<Map<String, GenericData2>>builder()
+                .<GenericData2>eachValue(Function.identity())
+                .notEmpty(GenericData2::getName, "名字不能为空")
+                .notEmpty(GenericData2::getSex, "性别不能为空")
+                .build();
+        assertEquals("[k2]名字不能为空,[k3]性别不能为空", plan.getErrorMsg(map));
+    }
+
+    @Test
+    public void eachIsSkippedInUnmatchedBranch() {
+        AtomicInteger getterCount = new AtomicInteger();
+        List<GenericData2> list = Arrays.asList(newData(null, null));
+        Function<List<GenericData2>, List<GenericData2>> getter = l -> {
+            getterCount.incrementAndGet();
+            return l;
+        };
+
+        ValidBean.ofLazy(list)
+                .when(l -> false)
+                .each(getter, ELEMENT_PLAN)
+                .eachValue(l -> {
+                    getterCount.incrementAndGet();
+                    return null;
+                }, ELEMENT_PLAN)
+                .complete();
+        ValidBean.of(list)
+                .when(l -> false)
+                .each(getter, ELEMENT_PLAN)
+                .complete();
+
+        ValidationPlan<List<GenericData2>> plan = ValidationPlan.<List<GenericData2>>builder()
+                .when(l -> false)
+                .<GenericData2>each(getter)
+                .notEmpty(GenericData2::getName, "名字不能为空")
+                .build();
+        assertNull(plan.getErrorMsg(list));
+        assertEquals(0, getterCount.get());
+    }
+
+    @Test
+    public void eachIsSkippedInInactiveGroup() {
+        AtomicInteger getterCount = new AtomicInteger();
+        List<GenericData2> list = Arrays.asList(newData(null, null));
+
+        ValidBean.ofLazy(list)
+                .activeGroups("create")
+                .group("update")
+                .each(l -> {
+                    getterCount.incrementAndGet();
+                    return l;
+                }, ELEMENT_PLAN)
+                .complete();
+        assertEquals(0, getterCount.get());
+    }
+}
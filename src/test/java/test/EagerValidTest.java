@@ -0,0 +1,88 @@
+package test;
+
+import bean.GenericData1;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBean;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * 立即校验：每条规则只获取一次被校验的值、只执行一次校验函数，遇到第一个未通过的规则就抛出异常
+ */
+public class EagerValidTest {
+
+    private static GenericData1 newData(String startDate, String endDate) {
+        GenericData1 data = new GenericData1();
+        data.setStartDate(startDate);
+        data.setEndDate(endDate);
+        return data;
+    }
+
+    private static <T> Function<T, Object> counting(Function<T, Object> getter, AtomicInteger counter) {
+        return bean -> {
+            counter.incrementAndGet();
+            return getter.apply(bean);
+        };
+    }
+
+    @Test
+    public void eachRuleIsEvaluatedOnce() {
+        AtomicInteger startCount = new AtomicInteger();
+        AtomicInteger endCount = new AtomicInteger();
+        AtomicInteger validCount = new AtomicInteger();
+
+        ValidBean.of(newData("2019-10-01", "2019-10-02"))
+                .notEmpty(counting(GenericData1::getStartDate, startCount), "开始时间不能为空")
+                .notEmpty(counting(GenericData1::getEndDate, endCount), "结束时间不能为空")
+                .valid(GenericData1::getStartDate, startDate -> validCount.incrementAndGet() > 0, "开始时间错误")
+                .complete();
+
+        assertEquals(1, startCount.get());
+        assertEquals(1, endCount.get());
+        assertEquals(1, validCount.get());
+    }
+
+    @Test
+    public void earlierRulesAreNotEvaluatedAgain() {
+        AtomicInteger startCount = new AtomicInteger();
+
+        ValidBean<GenericData1> validBean = ValidBean.of(newData("2019-10-01", "2019-10-02"))
+                .notEmpty(counting(GenericData1::getStartDate, startCount), "开始时间不能为空");
+        for (int i = 0; i < 10; i++) {
+            validBean.notEmpty(GenericData1::getEndDate, "结束时间不能为空");
+        }
+        validBean.complete();
+
+        assertEquals(1, startCount.get());
+    }
+
+    @Test
+    public void throwsAtFirstFailedRule() {
+        AtomicInteger afterCount = new AtomicInteger();
+        try {
+            ValidBean.of(newData("2019-10-01", null))
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                    .notEmpty(counting(GenericData1::getStartDate, afterCount), "不会执行")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("结束时间不能为空", e.getMessage());
+        }
+        assertEquals(0, afterCount.get());
+    }
+
+    @Test
+    public void usesDefaultErrorMsg() {
+        try {
+            ValidBean.of(newData(null, null)).notEmpty(GenericData1::getStartDate);
+            fail();
+        } catch (ParamException e) {
+            assertEquals("属性不能为空", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package test;
+
+import bean.GenericData1;
+import bean.GenericData2;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidError;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * failFast与errorBudget：收集到指定条数的错误信息后不再执行剩余的校验
+ */
+public class ErrorBudgetTest {
+
+    private static <T> Function<T, Object> counting(Function<T, Object> getter, AtomicInteger counter) {
+        return bean -> {
+            counter.incrementAndGet();
+            return getter.apply(bean);
+        };
+    }
+
+    private static GenericData2 newData2(String name, String sex) {
+        GenericData2 data = new GenericData2();
+        data.setName(name);
+        data.setSex(sex);
+        return data;
+    }
+
+    @Test
+    public void lazyStopsAtErrorBudget() {
+        AtomicInteger afterCount = new AtomicInteger();
+        try {
+            ValidBean.ofLazy(new GenericData1())
+                    .errorBudget(2)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                    .notEmpty(counting(GenericData1::getStartDate, afterCount), "不会执行")
+                    .notEmpty(counting(GenericData1::getEndDate, afterCount), "不会执行")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("开始时间不能为空,结束时间不能为空", e.getMessage());
+        }
+        assertEquals(0, afterCount.get());
+    }
+
+    @Test
+    public void lazyFailFastReportsFirstFailure() {
+        AtomicInteger afterCount = new AtomicInteger();
+        try {
+            ValidBean.ofLazy(new GenericData1())
+                    .failFast()
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(counting(GenericData1::getEndDate, afterCount), "不会执行")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("开始时间不能为空", e.getMessage());
+            assertEquals(1, e.getValidErrors().size());
+        }
+        assertEquals(0, afterCount.get());
+    }
+
+    @Test
+    public void zeroErrorBudgetCollectsAllErrors() {
+        try {
+            ValidBean.ofLazy(new GenericData1())
+                    .errorBudget(0)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("开始时间不能为空,结束时间不能为空", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeErrorBudgetIsRejected() {
+        ValidBean.ofLazy(new GenericData1()).errorBudget(-1);
+    }
+
+    @Test
+    public void planStopsAtErrorBudget() {
+        AtomicInteger afterCount = new AtomicInteger();
+        ValidationPlan<GenericData1> plan = ValidationPlan.<GenericData1>builder()
+                .errorBudget(2)
+                .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                .notEmpty(counting(GenericData1::getStartDate, afterCount), "不会执行")
+                .build();
+
+        assertEquals("开始时间不能为空,结束时间不能为空", plan.getErrorMsg(new GenericData1()));
+        assertEquals(0, afterCount.get());
+    }
+
+    @Test
+    public void planErrorBudgetCapsEachElements() {
+        ValidationPlan<List<GenericData2>> plan = ValidationPlan.<List<GenericData2>>builder()
+                .errorBudget(2)
+                .<GenericData2>each(Function.identity())
+                .notEmpty(GenericData2::getName, "名字不能为空")
+                .build();
+
+        List<GenericData2> list = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            list.add(newData2(null, "男"));
+        }
+        List<ValidError> validErrors = plan.getValidErrors(list);
+        assertEquals(2, validErrors.size());
+        assertEquals("[0]名字不能为空,[1]名字不能为空", ValidError.joinErrorMsg(validErrors));
+    }
+
+    @Test
+    public void lazyErrorBudgetCapsEachElements() {
+        ValidationPlan<GenericData2> elementPlan = ValidationPlan.<GenericData2>builder()
+                .notEmpty(GenericData2::getName, "名字不能为空")
+                .build();
+
+        List<GenericData2> list = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            list.add(newData2(null, "男"));
+        }
+        try {
+            ValidBean.ofLazy(list)
+                    .errorBudget(3)
+                    .notEmpty(l -> l, "列表不能为空")
+                    .each(Function.identity(), elementPlan)
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("[0]名字不能为空,[1]名字不能为空,[2]名字不能为空", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package test;
+
+import bean.GenericData1;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidError;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidExceptionFactory;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 错误码与消息模板：模板只在获取错误信息时才格式化，模板为空时使用默认错误信息并保留错误码
+ */
+public class ErrorCodeTest {
+
+    /**
+     * 记录toString调用次数的模板参数
+     */
+    private static final class CountingArg {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public String toString() {
+            count.incrementAndGet();
+            return "10";
+        }
+    }
+
+    @Test
+    public void templateIsFormattedOnlyWhenMessageIsRead() {
+        CountingArg arg = new CountingArg();
+        try {
+            ValidBean.ofLazy(new GenericData1())
+                    .notEmpty(GenericData1::getStartDate, "E1", "开始时间不能为空，最多{0}天", arg)
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals(0, arg.count.get());
+
+            List<ValidError> validErrors = e.getValidErrors();
+            assertEquals("E1", validErrors.get(0).getErrorCode());
+            assertEquals("开始时间不能为空，最多{0}天", validErrors.get(0).getMsgTemplate());
+            assertEquals("开始时间不能为空，最多10天", e.getMessage());
+            assertTrue(arg.count.get() > 0);
+        }
+    }
+
+    @Test
+    public void blankTemplateFallsBackToDefaultMessage() {
+        try {
+            ValidBean.ofLazy(new GenericData1())
+                    .notEmpty(GenericData1::getStartDate, "C1", " ")
+                    .notEmpty(GenericData1::getEndDate, "C2", null)
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("属性不能为空,属性不能为空", e.getMessage());
+            assertEquals("C1", e.getValidErrors().get(0).getErrorCode());
+            assertEquals("C2", e.getValidErrors().get(1).getErrorCode());
+        }
+
+        try {
+            ValidBean.of(new GenericData1()).empty(data -> "值", "C3", "");
+            fail();
+        } catch (ParamException e) {
+            assertEquals("属性需要为空", e.getMessage());
+            assertEquals("C3", e.getValidErrors().get(0).getErrorCode());
+        }
+
+        ValidationPlan<GenericData1> plan = ValidationPlan.<GenericData1>builder()
+                .notEmpty(GenericData1::getStartDate, "C1", "")
+                .empty(data -> "值", "C3", " ")
+                .build();
+        List<ValidError> validErrors = plan.getValidErrors(new GenericData1());
+        assertEquals("C1", validErrors.get(0).getErrorCode());
+        assertEquals("属性不能为空", validErrors.get(0).getErrorMsg());
+        assertEquals("C3", validErrors.get(1).getErrorCode());
+        assertEquals("属性需要为空", validErrors.get(1).getErrorMsg());
+    }
+
+    @Test
+    public void stacklessExceptionHasNoStackTrace() {
+        try {
+            ValidBean.ofLazy(new GenericData1())
+                    .exceptionFactory(ValidExceptionFactory.STACKLESS)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("开始时间不能为空", e.getMessage());
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void errorCodesAreKeptInErrorList() {
+        ValidationPlan<GenericData1> plan = ValidationPlan.<GenericData1>builder()
+                .notEmpty(GenericData1::getStartDate, "E1", "开始时间不能为空")
+                .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                .build();
+
+        List<ValidError> validErrors = plan.getValidErrors(new GenericData1());
+        assertEquals(2, validErrors.size());
+        assertEquals("E1", validErrors.get(0).getErrorCode());
+        assertNull(validErrors.get(1).getErrorCode());
+        assertEquals("开始时间不能为空,结束时间不能为空", ValidError.joinErrorMsg(validErrors));
+    }
+}
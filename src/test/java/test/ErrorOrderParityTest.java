@@ -0,0 +1,136 @@
+package test;
+
+import bean.Data2;
+import bean.GenericData1;
+import bean.GenericData2;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 立即校验、延迟校验与编译后的校验计划对同一组规则给出相同的错误信息与顺序
+ */
+public class ErrorOrderParityTest {
+
+    private static final ValidationPlan<Data2<GenericData1, GenericData2>> PLAN =
+            ValidationPlan.<Data2<GenericData1, GenericData2>>builder()
+                    .notEmpty(Data2::getBusinessId, "商户id不能为空")
+                    .map(Data2::getParams1)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(GenericData1::getEndDate)
+                    .<Data2<GenericData1, GenericData2>>parent()
+                    .notEmpty(Data2::getBusinessList, "商户列表不能为空")
+                    .map(Data2::getParams2)
+                    .notEmpty(GenericData2::getName, "名字不能为空")
+                    .notEmpty(GenericData2::getSex)
+                    .build();
+
+    private static Data2<GenericData1, GenericData2> newData(Integer businessId, String startDate, String endDate,
+                                                              String name, String sex) {
+        Data2<GenericData1, GenericData2> data = new Data2<>();
+        data.setBusinessId(businessId);
+        data.setBusinessList(Arrays.asList(1, 2));
+
+        GenericData1 params1 = new GenericData1();
+        params1.setStartDate(startDate);
+        params1.setEndDate(endDate);
+        data.setParams1(params1);
+
+        GenericData2 params2 = new GenericData2();
+        params2.setName(name);
+        params2.setSex(sex);
+        data.setParams2(params2);
+        return data;
+    }
+
+    private static String validLazy(Data2<GenericData1, GenericData2> data) {
+        try {
+            ValidBean.ofLazy(data)
+                    .notEmpty(Data2::getBusinessId, "商户id不能为空")
+                    .map(Data2::getParams1)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(GenericData1::getEndDate)
+                    .<Data2<GenericData1, GenericData2>>parent()
+                    .notEmpty(Data2::getBusinessList, "商户列表不能为空")
+                    .map(Data2::getParams2)
+                    .notEmpty(GenericData2::getName, "名字不能为空")
+                    .notEmpty(GenericData2::getSex)
+                    .complete();
+            return null;
+        } catch (ParamException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static String validEager(Data2<GenericData1, GenericData2> data) {
+        try {
+            ValidBean.of(data)
+                    .notEmpty(Data2::getBusinessId, "商户id不能为空")
+                    .map(Data2::getParams1)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(GenericData1::getEndDate)
+                    .<Data2<GenericData1, GenericData2>>parent()
+                    .notEmpty(Data2::getBusinessList, "商户列表不能为空")
+                    .map(Data2::getParams2)
+                    .notEmpty(GenericData2::getName, "名字不能为空")
+                    .notEmpty(GenericData2::getSex)
+                    .complete();
+            return null;
+        } catch (ParamException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void passesInAllModes() {
+        Data2<GenericData1, GenericData2> data = newData(1, "2019-10-01", "2019-10-02", "名字", "男");
+        assertNull(validEager(data));
+        assertNull(validLazy(data));
+        assertNull(PLAN.getErrorMsg(data));
+    }
+
+    @Test
+    public void lazyAndPlanReportTheSameErrorsInTheSameOrder() {
+        Data2<GenericData1, GenericData2> data = newData(null, null, null, null, null);
+        data.setBusinessList(Collections.emptyList());
+        String expected = "属性不能为空,商户id不能为空,开始时间不能为空,商户列表不能为空,名字不能为空";
+        assertEquals(expected, validLazy(data));
+        assertEquals(expected, PLAN.getErrorMsg(data));
+    }
+
+    @Test
+    public void eagerReportsTheFirstDeclaredFailure() {
+        Data2<GenericData1, GenericData2> data = newData(1, "2019-10-01", null, null, null);
+        assertEquals("属性不能为空", validEager(data));
+
+        data = newData(1, "2019-10-01", "2019-10-02", null, null);
+        assertEquals("名字不能为空", validEager(data));
+        assertEquals("属性不能为空,名字不能为空", validLazy(data));
+        assertEquals("属性不能为空,名字不能为空", PLAN.getErrorMsg(data));
+    }
+
+    @Test
+    public void singleFailureIsReportedIdenticallyInAllModes() {
+        String[][] cases = {
+                {null, "2019-10-01", "2019-10-02", "名字", "男"},
+                {"1", null, "2019-10-02", "名字", "男"},
+                {"1", "2019-10-01", null, "名字", "男"},
+                {"1", "2019-10-01", "2019-10-02", null, "男"},
+                {"1", "2019-10-01", "2019-10-02", "名字", null},
+        };
+        for (String[] values : cases) {
+            Data2<GenericData1, GenericData2> data = newData(values[0] == null ? null : Integer.valueOf(values[0]),
+                    values[1], values[2], values[3], values[4]);
+            String eager = validEager(data);
+            assertNotNull(eager);
+            assertEquals(eager, validLazy(data));
+            assertEquals(eager, PLAN.getErrorMsg(data));
+        }
+    }
+}
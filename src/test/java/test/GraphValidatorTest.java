@@ -0,0 +1,168 @@
+package test;
+
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidError;
+import com.bean.valid.exption.ValidatedException;
+import com.bean.valid.util.GraphValidator;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * GraphValidator：每个对象只校验一次，循环引用不会死循环，错误信息带有从根对象开始的位置
+ */
+public class GraphValidatorTest {
+
+    /**
+     * 对象图中的节点，可以通过children与next形成共享与循环引用
+     */
+    public static class TreeNode {
+        private String name;
+
+        private TreeNode next;
+
+        private final List<TreeNode> children = new ArrayList<>();
+
+        private final Map<String, TreeNode> attributes = new LinkedHashMap<>();
+
+        TreeNode(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public TreeNode getNext() {
+            return next;
+        }
+
+        public List<TreeNode> getChildren() {
+            return children;
+        }
+
+        public Map<String, TreeNode> getAttributes() {
+            return attributes;
+        }
+    }
+
+    private static GraphValidator newValidator(AtomicInteger validCount, int errorBudget) {
+        ValidationPlan<TreeNode> plan = ValidationPlan.<TreeNode>builder()
+                .validBoolean(node -> validCount.incrementAndGet() > 0, "不会失败")
+                .notEmpty(TreeNode::getName, "名称不能为空")
+                .build();
+        return GraphValidator.builder()
+                .rules(TreeNode.class, plan)
+                .child(TreeNode.class, "children", TreeNode::getChildren)
+                .child(TreeNode.class, "attributes", TreeNode::getAttributes)
+                .child(TreeNode.class, "next", TreeNode::getNext)
+                .errorBudget(errorBudget)
+                .build();
+    }
+
+    @Test
+    public void errorsHavePathFromRoot() {
+        TreeNode root = new TreeNode(null);
+        TreeNode child = new TreeNode("child");
+        root.getChildren().add(new TreeNode("first"));
+        root.getChildren().add(child);
+        child.getChildren().add(new TreeNode(null));
+        child.getAttributes().put("k1", new TreeNode(null));
+        child.next = new TreeNode(null);
+
+        assertEquals("名称不能为空,[children[1].children[0]]名称不能为空,[children[1].attributes[k1]]名称不能为空,"
+                        + "[children[1].next]名称不能为空",
+                newValidator(new AtomicInteger(), 0).getErrorMsg(root));
+    }
+
+    @Test
+    public void cycleIsValidatedOnce() {
+        TreeNode first = new TreeNode("first");
+        TreeNode second = new TreeNode(null);
+        first.next = second;
+        second.next = first;
+        second.getChildren().add(first);
+        second.getChildren().add(second);
+
+        AtomicInteger validCount = new AtomicInteger();
+        assertEquals("[next]名称不能为空", newValidator(validCount, 0).getErrorMsg(first));
+        assertEquals(2, validCount.get());
+    }
+
+    @Test
+    public void sharedNodeIsValidatedOnce() {
+        TreeNode shared = new TreeNode(null);
+        TreeNode root = new TreeNode("root");
+        root.getChildren().add(shared);
+        root.getChildren().add(shared);
+        root.getAttributes().put("k1", shared);
+        root.next = shared;
+
+        AtomicInteger validCount = new AtomicInteger();
+        List<ValidError> validErrors = newValidator(validCount, 0).getValidErrors(root);
+        assertEquals(1, validErrors.size());
+        assertEquals("[children[0]]名称不能为空", validErrors.get(0).getErrorMsg());
+        assertEquals(2, validCount.get());
+    }
+
+    @Test
+    public void deepGraphDoesNotOverflowStack() {
+        TreeNode root = new TreeNode("root");
+        TreeNode node = root;
+        for (int i = 0; i < 100000; i++) {
+            node.next = new TreeNode("node" + i);
+            node = node.next;
+        }
+        node.next = root;
+
+        AtomicInteger validCount = new AtomicInteger();
+        assertNull(newValidator(validCount, 0).getErrorMsg(root));
+        assertEquals(100001, validCount.get());
+    }
+
+    @Test
+    public void errorBudgetTruncatesErrors() {
+        TreeNode root = new TreeNode(null);
+        for (int i = 0; i < 5; i++) {
+            root.getChildren().add(new TreeNode(null));
+        }
+
+        AtomicInteger validCount = new AtomicInteger();
+        try {
+            newValidator(validCount, 2).valid(root);
+            fail();
+        } catch (ParamException e) {
+            assertEquals("名称不能为空,[children[0]]名称不能为空", e.getMessage());
+            assertEquals(2, e.getValidErrors().size());
+        }
+        assertEquals(2, validCount.get());
+
+        assertEquals(1, newValidator(new AtomicInteger(), 1).getValidErrors(root).size());
+    }
+
+    @Test
+    public void maxNodesIsEnforced() {
+        TreeNode root = new TreeNode("root");
+        for (int i = 0; i < 10; i++) {
+            root.getChildren().add(new TreeNode("child" + i));
+        }
+
+        GraphValidator validator = GraphValidator.builder()
+                .child(TreeNode.class, "children", TreeNode::getChildren)
+                .maxNodes(5)
+                .build();
+        try {
+            validator.valid(root);
+            fail();
+        } catch (ValidatedException e) {
+            assertEquals("对象图中的对象个数超过限制：5", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package test;
+
+import bean.GenericData1;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * 规则分组：没有分组的规则总是执行，只执行选择的分组中的规则，activeGroups需要在声明规则与分组之前调用
+ */
+public class GroupValidTest {
+
+    private static final ValidationPlan<GenericData1> PLAN = ValidationPlan.<GenericData1>builder()
+            .group("create").notEmpty(GenericData1::getStartDate, "开始时间不能为空").<GenericData1>parent()
+            .group("update").notEmpty(GenericData1::getEndDate, "结束时间不能为空").<GenericData1>parent()
+            .validBoolean(data -> false, "总是失败")
+            .build();
+
+    private static <T> Function<T, Object> counting(Function<T, Object> getter, AtomicInteger counter) {
+        return bean -> {
+            counter.incrementAndGet();
+            return getter.apply(bean);
+        };
+    }
+
+    private static String validLazy(AtomicInteger createCount, AtomicInteger updateCount, String... groups) {
+        try {
+            ValidBean.ofLazy(new GenericData1())
+                    .activeGroups(groups)
+                    .group("create").notEmpty(counting(GenericData1::getStartDate, createCount), "开始时间不能为空").<GenericData1>parent()
+                    .group("update").notEmpty(counting(GenericData1::getEndDate, updateCount), "结束时间不能为空").<GenericData1>parent()
+                    .validBoolean(data -> false, "总是失败")
+                    .complete();
+            return null;
+        } catch (ParamException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void onlyActiveGroupsAreValidated() {
+        AtomicInteger createCount = new AtomicInteger();
+        AtomicInteger updateCount = new AtomicInteger();
+
+        assertEquals("开始时间不能为空,总是失败", validLazy(createCount, updateCount, "create"));
+        assertEquals(1, createCount.get());
+        assertEquals(0, updateCount.get());
+
+        assertEquals("总是失败", validLazy(createCount, updateCount));
+        assertEquals("开始时间不能为空,结束时间不能为空,总是失败", validLazy(createCount, updateCount, "create", "update"));
+        assertEquals(2, createCount.get());
+        assertEquals(1, updateCount.get());
+    }
+
+    @Test
+    public void ruleInAnyOfItsGroupsIsValidated() {
+        try {
+            ValidBean.ofLazy(new GenericData1())
+                    .activeGroups("update")
+                    .group("create", "update").notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("开始时间不能为空", e.getMessage());
+        }
+    }
+
+    @Test
+    public void planForGroupsMatchesLazy() {
+        assertEquals("总是失败", PLAN.getErrorMsg(new GenericData1()));
+        assertEquals(validLazy(new AtomicInteger(), new AtomicInteger(), "create"),
+                PLAN.forGroups("create").getErrorMsg(new GenericData1()));
+        assertEquals(validLazy(new AtomicInteger(), new AtomicInteger(), "update", "create"),
+                PLAN.forGroups("create", "update").getErrorMsg(new GenericData1()));
+    }
+
+    @Test
+    public void planForGroupsIsCached() {
+        assertSame(PLAN.forGroups("create", "update"), PLAN.forGroups("update", "create"));
+        assertSame(PLAN.forGroups("create"), PLAN.forGroups("create").forGroups("create"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void activeGroupsAfterRuleIsRejected() {
+        ValidBean.ofLazy(new GenericData1())
+                .notEmpty(GenericData1::getStartDate)
+                .activeGroups("create");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void activeGroupsAfterGroupIsRejected() {
+        ValidBean.ofLazy(new GenericData1())
+                .group("create")
+                .activeGroups("create");
+    }
+
+    @Test
+    public void activeGroupsAfterResetIsAllowed() {
+        ValidBean<GenericData1> validBean = ValidBean.ofLazy(new GenericData1());
+        validBean.group("create").notEmpty(GenericData1::getStartDate, "开始时间不能为空");
+        validBean.reset(new GenericData1()).activeGroups("create");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyGroupsAreRejected() {
+        ValidBean.ofLazy(new GenericData1()).group();
+    }
+}
@@ -0,0 +1,139 @@
+package test;
+
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.PropertyPath;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Map校验：按属性路径校验，when、otherwise、group、mapIfPresent返回的作用域中同样可以按属性路径校验
+ */
+public class MapValidTest {
+
+    private static Map<String, Object> newParams(String type) {
+        Map<String, Object> company = new HashMap<>();
+        company.put("name", null);
+        Map<String, Object> item = new HashMap<>();
+        item.put("count", "1");
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("type", type);
+        params.put("company", company);
+        params.put("items", Arrays.asList(item));
+        return params;
+    }
+
+    private static String valid(ValidBean<?> validBean) {
+        try {
+            validBean.complete();
+            return null;
+        } catch (ParamException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void propertyPathsAreValidated() {
+        assertEquals("公司名称不能为空,商户id不能为空,数量错误", valid(ValidBean.ofLazyMap(newParams("company"))
+                .notEmpty("company.name", "公司名称不能为空")
+                .notEmpty("missing.businessId", "商户id不能为空")
+                .valid("items[0].count", count -> count instanceof Integer, "数量错误")
+                .notEmpty("items[0].count", "不会失败")));
+    }
+
+    @Test
+    public void branchesValidatePropertyPaths() {
+        String companyErrorMsg = valid(ValidBean.ofLazyMap(newParams("company"))
+                .when(map -> "company".equals(map.get("type")))
+                .notEmpty("company.name", "公司名称不能为空")
+                .otherwise()
+                .notEmpty("person.name", "姓名不能为空")
+                .parentMap()
+                .notEmpty("businessId", "商户id不能为空"));
+        assertEquals("公司名称不能为空,商户id不能为空", companyErrorMsg);
+
+        String personErrorMsg = valid(ValidBean.ofLazyMap(newParams("person"))
+                .when(map -> "company".equals(map.get("type")))
+                .notEmpty("company.name", "公司名称不能为空")
+                .otherwise()
+                .notEmpty("person.name", "姓名不能为空")
+                .parentMap()
+                .notEmpty("businessId", "商户id不能为空"));
+        assertEquals("姓名不能为空,商户id不能为空", personErrorMsg);
+    }
+
+    @Test
+    public void nestedBranchesValidatePropertyPaths() {
+        String errorMsg = valid(ValidBean.ofLazyMap(newParams("company"))
+                .when(map -> true)
+                .when(map -> "company".equals(map.get("type")))
+                .notEmpty("company.name", "公司名称不能为空")
+                .otherwise()
+                .notEmpty("person.name", "姓名不能为空")
+                .parentMap()
+                .notEmpty("businessId", "商户id不能为空")
+                .parentMap()
+                .notEmpty("type", "类型不能为空"));
+        assertEquals("公司名称不能为空,商户id不能为空", errorMsg);
+    }
+
+    @Test
+    public void groupValidatesPropertyPaths() {
+        String errorMsg = valid(ValidBean.ofLazyMap(newParams("company"))
+                .activeGroups("update")
+                .group("create").notEmpty("id", "不会执行").parentMap()
+                .group("update").notEmpty("id", "id不能为空").parentMap());
+        assertEquals("id不能为空", errorMsg);
+    }
+
+    @Test
+    public void mapIfPresentValidatesSubMapPaths() {
+        Map<String, Object> params = newParams("company");
+        assertNull(valid(ValidBean.ofLazyMap(params)
+                .mapIfPresent("address")
+                .notEmpty("city", "城市不能为空")
+                .parentMap()));
+
+        params.put("address", "不是Map");
+        assertNull(valid(ValidBean.ofLazyMap(params)
+                .mapIfPresent("address")
+                .notEmpty("city", "城市不能为空")
+                .parentMap()));
+
+        assertEquals("公司名称不能为空,商户id不能为空", valid(ValidBean.ofLazyMap(params)
+                .mapIfPresent("company")
+                .notEmpty("name", "公司名称不能为空")
+                .parentMap()
+                .notEmpty("businessId", "商户id不能为空")));
+    }
+
+    @Test
+    public void eagerMapThrowsAtFirstFailure() {
+        try {
+            ValidBean.ofMap(newParams("company"))
+                    .when(map -> true)
+                    .notEmpty("type", "类型不能为空")
+                    .notEmpty("company.name", "公司名称不能为空")
+                    .notEmpty("businessId", "不会执行");
+            fail();
+        } catch (ParamException e) {
+            assertEquals("公司名称不能为空", e.getMessage());
+        }
+    }
+
+    @Test
+    public void planUsesPropertyPath() {
+        ValidationPlan<Map<String, Object>> plan = ValidationPlan.<Map<String, Object>>builder()
+                .notEmpty(PropertyPath.of("company.name").asFunction(), "公司名称不能为空")
+                .notEmpty(PropertyPath.of("items[0].count").asFunction(), "不会失败")
+                .build();
+        assertEquals("公司名称不能为空", plan.getErrorMsg(newParams("company")));
+    }
+}
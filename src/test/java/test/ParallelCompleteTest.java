@@ -0,0 +1,125 @@
+package test;
+
+import bean.GenericData1;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidMetrics;
+import org.junit.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+/**
+ * complete(parallelism)：每条规则只执行一次，错误信息按声明顺序排列，与complete一致
+ */
+public class ParallelCompleteTest {
+
+    private static final int RULE_COUNT = 40;
+
+    private static ValidBean<GenericData1> newValidBean(AtomicIntegerArray counts) {
+        ValidBean<GenericData1> validBean = ValidBean.ofLazy(new GenericData1());
+        for (int i = 0; i < RULE_COUNT; i++) {
+            int index = i;
+            validBean.validBoolean(data -> {
+                counts.incrementAndGet(index);
+                sleepRandomly();
+                return index % 3 != 0;
+            }, "规则" + i + "未通过");
+        }
+        return validBean;
+    }
+
+    private static void sleepRandomly() {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String valid(ValidBean<GenericData1> validBean, int parallelism) {
+        try {
+            validBean.complete(parallelism);
+            return null;
+        } catch (ParamException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static void assertEachRuleEvaluatedOnce(AtomicIntegerArray counts) {
+        for (int i = 0; i < counts.length(); i++) {
+            assertEquals("规则" + i, 1, counts.get(i));
+        }
+    }
+
+    @Test
+    public void errorsAreInDeclarationOrder() {
+        AtomicIntegerArray sequentialCounts = new AtomicIntegerArray(RULE_COUNT);
+        String expected = valid(newValidBean(sequentialCounts), 1);
+        assertNotNull(expected);
+        assertTrue(expected.startsWith("规则0未通过,规则3未通过,规则6未通过"));
+
+        for (int parallelism : new int[]{2, 4, 8}) {
+            AtomicIntegerArray counts = new AtomicIntegerArray(RULE_COUNT);
+            assertEquals(expected, valid(newValidBean(counts), parallelism));
+            assertEachRuleEvaluatedOnce(counts);
+        }
+    }
+
+    @Test
+    public void errorBudgetAppliesAfterAllRules() {
+        AtomicIntegerArray counts = new AtomicIntegerArray(RULE_COUNT);
+        ValidBean<GenericData1> validBean = newValidBean(counts).errorBudget(2);
+        assertEquals("规则0未通过,规则3未通过", valid(validBean, 4));
+        assertEachRuleEvaluatedOnce(counts);
+    }
+
+    @Test
+    public void cheapRulesRunSequentially() {
+        try {
+            ValidBean.ofLazy(new GenericData1())
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                    .complete(4);
+            fail();
+        } catch (ParamException e) {
+            assertEquals("开始时间不能为空,结束时间不能为空", e.getMessage());
+        }
+    }
+
+    @Test
+    public void ruleExceptionIsRethrownUnchanged() {
+        IllegalStateException ruleException = new IllegalStateException("校验函数异常");
+        ValidBean<GenericData1> validBean = newValidBean(new AtomicIntegerArray(RULE_COUNT))
+                .validBoolean(data -> {
+                    throw ruleException;
+                }, "不会记录");
+        try {
+            validBean.complete(4);
+            fail();
+        } catch (IllegalStateException e) {
+            assertSame(ruleException, e);
+        }
+    }
+
+    @Test
+    public void listenerIsNotifiedOnce() {
+        ValidMetrics metrics = new ValidMetrics();
+        ValidBean<GenericData1> validBean = newValidBean(new AtomicIntegerArray(RULE_COUNT))
+                .name("parallel")
+                .listener(metrics);
+        assertNotNull(valid(validBean, 4));
+
+        assertEquals(RULE_COUNT, metrics.getRuleMetrics().size());
+        assertEquals(1, metrics.getRuleMetrics().get("parallel#0").getFailCount());
+        assertEquals(1, metrics.getRuleMetrics().get("parallel#1").getPassCount());
+        assertEquals(1, metrics.getCompleteMetrics().getFailCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parallelismLessThanOneIsRejected() {
+        ValidBean.ofLazy(new GenericData1()).complete(0);
+    }
+}
@@ -0,0 +1,120 @@
+package test;
+
+import bean.GenericData1;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidListener;
+import com.bean.valid.util.ValidMetrics;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 规则标识：错误码或者"名称#声明位置"，不同名称的调用链与校验计划共用一个ValidMetrics时不会合并
+ */
+public class RuleIdTest {
+
+    private static GenericData1 newData(String startDate, String endDate) {
+        GenericData1 data = new GenericData1();
+        data.setStartDate(startDate);
+        data.setEndDate(endDate);
+        return data;
+    }
+
+    private static void validLazy(ValidMetrics metrics, String name, GenericData1 data) {
+        try {
+            ValidBean.ofLazy(data)
+                    .name(name)
+                    .listener(metrics)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(GenericData1::getEndDate, "E1", "结束时间不能为空")
+                    .complete();
+        } catch (ParamException ignored) {
+        }
+    }
+
+    @Test
+    public void ruleIdIsNameAndIndexOrErrorCode() {
+        List<String> ruleIds = new ArrayList<>();
+        ValidListener listener = (ruleId, pass, elapsedNanos) -> ruleIds.add(ruleId);
+        try {
+            ValidBean.ofLazy(newData(null, null))
+                    .name("order")
+                    .listener(listener)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .notEmpty(GenericData1::getEndDate, "E1", "结束时间不能为空")
+                    .validBoolean(data -> true, "不会失败")
+                    .complete();
+            fail();
+        } catch (ParamException ignored) {
+        }
+        assertEquals("[order#0, E1, order#2]", ruleIds.toString());
+    }
+
+    @Test
+    public void chainsWithDifferentNamesAreNotMerged() {
+        ValidMetrics metrics = new ValidMetrics();
+        validLazy(metrics, "create", newData(null, "2019-10-02"));
+        validLazy(metrics, "update", newData("2019-10-01", "2019-10-02"));
+        validLazy(metrics, "update", newData("2019-10-01", null));
+
+        assertEquals(1, metrics.getRuleMetrics().get("create#0").getFailCount());
+        assertEquals(0, metrics.getRuleMetrics().get("create#0").getPassCount());
+        assertEquals(2, metrics.getRuleMetrics().get("update#0").getPassCount());
+        assertEquals(1, metrics.getRuleMetrics().get("E1").getFailCount());
+        assertEquals(2, metrics.getCompleteMetrics().getFailCount());
+    }
+
+    @Test
+    public void planRuleIdsUseThePlanName() {
+        ValidMetrics metrics = new ValidMetrics();
+        ValidationPlan<GenericData1> plan = ValidationPlan.<GenericData1>builder()
+                .name("plan")
+                .listener(metrics)
+                .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                .notEmpty(GenericData1::getEndDate, "结束时间不能为空")
+                .build();
+        plan.getErrorMsg(newData(null, "2019-10-02"));
+
+        assertEquals(1, metrics.getRuleMetrics().get("plan#0").getFailCount());
+        assertEquals(1, metrics.getRuleMetrics().get("plan#1").getPassCount());
+    }
+
+    @Test
+    public void defaultNameIsTheListenerCallSite() {
+        ValidMetrics metrics = new ValidMetrics();
+        for (int i = 0; i < 2; i++) {
+            ValidBean.ofLazy(newData("2019-10-01", "2019-10-02"))
+                    .listener(metrics)
+                    .notEmpty(GenericData1::getStartDate)
+                    .complete();
+        }
+        ValidBean.ofLazy(newData("2019-10-01", "2019-10-02"))
+                .listener(metrics)
+                .notEmpty(GenericData1::getStartDate)
+                .complete();
+
+        assertEquals(2, metrics.getRuleMetrics().size());
+        for (String ruleId : metrics.getRuleMetrics().keySet()) {
+            assertTrue(ruleId, ruleId.startsWith(RuleIdTest.class.getName() + ".defaultNameIsTheListenerCallSite:"));
+            assertTrue(ruleId, ruleId.endsWith("#0"));
+        }
+    }
+
+    @Test
+    public void planWithoutListenerBuilds() {
+        ValidationPlan<GenericData1> plan = ValidationPlan.<GenericData1>builder()
+                .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                .build();
+        assertEquals("开始时间不能为空", plan.getErrorMsg(newData(null, null)));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void nullNameIsRejected() {
+        ValidBean.ofLazy(newData(null, null)).name(null);
+    }
+}
@@ -0,0 +1,87 @@
+package test;
+
+import bean.Data2;
+import bean.GenericData1;
+import bean.GenericData2;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidSubBean;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * map与parent连接的整条调用链共用一个错误列表，默认错误信息只出现一次并放在开头
+ */
+public class SharedChainTest {
+
+    private static Data2<GenericData1, GenericData2> newData() {
+        Data2<GenericData1, GenericData2> data = new Data2<>();
+        data.setParams1(new GenericData1());
+        data.setParams2(new GenericData2());
+        return data;
+    }
+
+    @Test
+    public void defaultErrorMsgIsReportedOnceAtTheStart() {
+        try {
+            ValidBean.ofLazy(newData())
+                    .notEmpty(Data2::getBusinessId, "商户id不能为空")
+                    .map(Data2::getParams1)
+                    .notEmpty(GenericData1::getStartDate)
+                    .<Data2<GenericData1, GenericData2>>parent()
+                    .map(Data2::getParams2)
+                    .notEmpty(GenericData2::getName)
+                    .notEmpty(GenericData2::getSex, "性别不能为空")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("属性不能为空,商户id不能为空,性别不能为空", e.getMessage());
+        }
+    }
+
+    @Test
+    public void completeOnAnyBeanOfTheChainValidatesTheWholeChain() {
+        ValidBean<Data2<GenericData1, GenericData2>> root = ValidBean.ofLazy(newData())
+                .notEmpty(Data2::getBusinessId, "商户id不能为空");
+        ValidSubBean<GenericData1, Data2<GenericData1, GenericData2>> subBean = root.map(Data2::getParams1);
+        subBean.notEmpty(GenericData1::getStartDate, "开始时间不能为空");
+
+        try {
+            subBean.complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("商户id不能为空,开始时间不能为空", e.getMessage());
+        }
+    }
+
+    @Test
+    public void immediatelyValidatesPendingRulesOfTheChain() {
+        try {
+            ValidBean.ofLazy(newData())
+                    .notEmpty(Data2::getBusinessId, "商户id不能为空")
+                    .map(Data2::getParams1)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .immediately();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("商户id不能为空,开始时间不能为空", e.getMessage());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void deprecatedParentChainListIsTheChainList() {
+        ValidBean<Data2<GenericData1, GenericData2>> root = ValidBean.ofLazy(newData())
+                .notEmpty(Data2::getBusinessId, "商户id不能为空");
+        ValidSubBean<GenericData1, Data2<GenericData1, GenericData2>> subBean = root.map(Data2::getParams1);
+        subBean.notEmpty(GenericData1::getStartDate, "开始时间不能为空");
+
+        List<?> validTripleList = subBean.getValidTripleListForParentChain();
+        assertSame(root.getValidTripleList(), validTripleList);
+        assertSame(subBean.getValidTripleList(), validTripleList);
+        assertEquals(2, validTripleList.size());
+    }
+}
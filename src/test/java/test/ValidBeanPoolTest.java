@@ -0,0 +1,179 @@
+package test;
+
+import bean.Data2;
+import bean.GenericData1;
+import bean.GenericData2;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidatedException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidBeanPool;
+import com.bean.valid.util.ValidMetrics;
+import com.bean.valid.util.ValidSubBean;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * ValidBeanPool：release之后复用同一个ValidBean且状态与新创建的一样，调试模式下检查使用线程与release之后的使用
+ */
+public class ValidBeanPoolTest {
+
+    private boolean debugEnable;
+
+    @Before
+    public void saveDebugEnable() {
+        debugEnable = ValidBeanPool.isDebugEnable();
+    }
+
+    @After
+    public void restoreDebugEnable() {
+        ValidBeanPool.setDebugEnable(debugEnable);
+    }
+
+    private static Data2<GenericData1, GenericData2> newData(Integer businessId) {
+        Data2<GenericData1, GenericData2> data = new Data2<>();
+        data.setBusinessId(businessId);
+        data.setParams1(new GenericData1());
+        return data;
+    }
+
+    @Test
+    public void releasedValidBeanIsReused() {
+        ValidBean<Data2<GenericData1, GenericData2>> validBean = ValidBean.ofLazyPooled(newData(1));
+        ValidSubBean<GenericData1, Data2<GenericData1, GenericData2>> subBean = validBean.map(Data2::getParams1);
+        validBean.release();
+
+        ValidBean<Data2<GenericData1, GenericData2>> reused = ValidBean.ofLazyPooled(newData(2));
+        try {
+            assertSame(validBean, reused);
+            assertSame(subBean, reused.map(Data2::getParams1));
+        } finally {
+            reused.release();
+        }
+    }
+
+    @Test
+    public void reusedValidBeanHasCleanState() {
+        ValidBean<Data2<GenericData1, GenericData2>> validBean = ValidBean.ofLazyPooled(newData(null));
+        try {
+            validBean.errorBudget(1)
+                    .name("pooled")
+                    .listener(new ValidMetrics())
+                    .activeGroups("create")
+                    .immediately()
+                    .notEmpty(Data2::getBusinessId, "商户id不能为空");
+            fail();
+        } catch (ParamException e) {
+            assertEquals("商户id不能为空", e.getMessage());
+        } finally {
+            validBean.release();
+        }
+
+        ValidBean<Data2<GenericData1, GenericData2>> reused = ValidBean.ofLazyPooled(newData(null));
+        try {
+            assertSame(validBean, reused);
+
+            //恢复为延迟校验、不限制错误条数、没有选择分组，之前的错误信息已经清除
+            reused.notEmpty(Data2::getBusinessId, "商户id不能为空")
+                    .group("create").notEmpty(Data2::getBusinessList, "不会执行").<Data2<GenericData1, GenericData2>>parent()
+                    .notEmpty(Data2::getBusinessList, "商户列表不能为空")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("商户id不能为空,商户列表不能为空", e.getMessage());
+        } finally {
+            reused.release();
+        }
+    }
+
+    @Test
+    public void pooledValidBeanKeepsRequestedMode() {
+        ValidBean<Data2<GenericData1, GenericData2>> validBean = ValidBean.ofLazyPooled(newData(null));
+        validBean.release();
+
+        ValidBean<Data2<GenericData1, GenericData2>> eager = ValidBean.ofPooled(newData(null));
+        try {
+            assertSame(validBean, eager);
+            eager.notEmpty(Data2::getBusinessId, "商户id不能为空");
+            fail();
+        } catch (ParamException e) {
+            assertEquals("商户id不能为空", e.getMessage());
+        } finally {
+            eager.release();
+        }
+    }
+
+    @Test
+    public void releaseOfNotPooledValidBeanDoesNothing() {
+        ValidBean<Data2<GenericData1, GenericData2>> validBean = ValidBean.ofLazy(newData(1));
+        validBean.release();
+        validBean.notEmpty(Data2::getBusinessId).complete();
+    }
+
+    @Test
+    public void debugRejectsUseAfterRelease() {
+        ValidBeanPool.setDebugEnable(true);
+        ValidBean<Data2<GenericData1, GenericData2>> validBean = ValidBean.ofLazyPooled(newData(1));
+        validBean.release();
+
+        try {
+            validBean.notEmpty(Data2::getBusinessId);
+            fail();
+        } catch (ValidatedException e) {
+            assertEquals("ValidBean已经release，不能继续使用", e.getMessage());
+        }
+    }
+
+    @Test
+    public void debugRejectsUseFromOtherThread() throws InterruptedException {
+        ValidBeanPool.setDebugEnable(true);
+        ValidBean<Data2<GenericData1, GenericData2>> validBean = ValidBean.ofLazyPooled(newData(1));
+        try {
+            AtomicReference<RuntimeException> exception = new AtomicReference<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    validBean.notEmpty(Data2::getBusinessId);
+                } catch (RuntimeException e) {
+                    exception.set(e);
+                }
+            });
+            thread.start();
+            thread.join();
+
+            assertTrue(exception.get() instanceof ValidatedException);
+            assertTrue(exception.get().getMessage().startsWith("池化的ValidBean只能在获取它的线程中使用"));
+        } finally {
+            validBean.release();
+        }
+    }
+
+    @Test
+    public void withoutDebugOtherThreadIsNotChecked() throws InterruptedException {
+        ValidBeanPool.setDebugEnable(false);
+        ValidBean<Data2<GenericData1, GenericData2>> validBean = ValidBean.ofLazyPooled(newData(1));
+        try {
+            AtomicReference<RuntimeException> exception = new AtomicReference<>();
+            Thread thread = new Thread(() -> {
+                try {
+                    validBean.notEmpty(Data2::getBusinessId);
+                } catch (RuntimeException e) {
+                    exception.set(e);
+                }
+            });
+            thread.start();
+            thread.join();
+            assertNull(exception.get());
+        } finally {
+            validBean.release();
+        }
+    }
+
+    @Test(expected = ValidatedException.class)
+    public void onlyRootValidBeanCanBeReset() {
+        ValidBean.ofLazy(newData(1)).map(Data2::getParams1).reset(new GenericData1());
+    }
+}
@@ -0,0 +1,205 @@
+package test;
+
+import bean.GenericData1;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidError;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidationCache;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * ValidationCache：命中时不再校验，超过maximumSize时淘汰最久未访问的结果，过期的结果重新校验，缓存的错误列表不可修改
+ */
+public class ValidationCacheTest {
+
+    private static GenericData1 newData(String startDate) {
+        GenericData1 data = new GenericData1();
+        data.setStartDate(startDate);
+        return data;
+    }
+
+    private static ValidationPlan<GenericData1> countingPlan(AtomicInteger validCount) {
+        return ValidationPlan.<GenericData1>builder()
+                .validBoolean(data -> validCount.incrementAndGet() > 0, "不会失败")
+                .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                .build();
+    }
+
+    @Test
+    public void hitDoesNotValidateAgain() {
+        AtomicInteger validCount = new AtomicInteger();
+        ValidationCache<GenericData1> cache = ValidationCache.<GenericData1>builder().build(countingPlan(validCount));
+
+        GenericData1 data = newData("2019-10-01");
+        cache.valid(data);
+        cache.valid(data);
+        cache.valid(data);
+
+        assertEquals(1, validCount.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void failedResultIsCached() {
+        AtomicInteger validCount = new AtomicInteger();
+        ValidationCache<GenericData1> cache = ValidationCache.<GenericData1>builder().build(countingPlan(validCount));
+
+        GenericData1 data = newData(null);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.valid(data);
+                fail();
+            } catch (ParamException e) {
+                assertEquals("开始时间不能为空", e.getMessage());
+            }
+        }
+        assertEquals(1, validCount.get());
+    }
+
+    @Test
+    public void defaultKeyComparesByIdentity() {
+        AtomicInteger validCount = new AtomicInteger();
+        ValidationCache<GenericData1> cache = ValidationCache.<GenericData1>builder().build(countingPlan(validCount));
+
+        cache.valid(newData("2019-10-01"));
+        cache.valid(newData("2019-10-01"));
+        assertEquals(2, validCount.get());
+    }
+
+    @Test
+    public void keyFunctionSharesResults() {
+        AtomicInteger validCount = new AtomicInteger();
+        ValidationCache<GenericData1> cache = ValidationCache.<GenericData1>builder()
+                .keyFunction(GenericData1::getStartDate)
+                .build(countingPlan(validCount));
+
+        cache.valid(newData("2019-10-01"));
+        cache.valid(newData("2019-10-01"));
+        assertEquals(1, validCount.get());
+    }
+
+    @Test
+    public void cachedErrorsAreUnmodifiable() {
+        ValidationCache<GenericData1> cache = ValidationCache.<GenericData1>builder().build(countingPlan(new AtomicInteger()));
+        GenericData1 data = newData(null);
+
+        List<List<ValidError>> errorLists = new ArrayList<>();
+        errorLists.add(cache.getValidErrors(data));
+        errorLists.add(cache.getValidErrors(data));
+        try {
+            cache.valid(data);
+            fail();
+        } catch (ParamException e) {
+            errorLists.add(e.getValidErrors());
+        }
+
+        for (List<ValidError> validErrors : errorLists) {
+            try {
+                validErrors.clear();
+                fail();
+            } catch (UnsupportedOperationException e) {
+                assertEquals(1, validErrors.size());
+            }
+        }
+        assertEquals(1, cache.getValidErrors(data).size());
+    }
+
+    @Test
+    public void leastRecentlyAccessedResultsAreEvicted() {
+        AtomicInteger validCount = new AtomicInteger();
+        ValidationCache<GenericData1> cache = ValidationCache.<GenericData1>builder()
+                .maximumSize(16)
+                .build(countingPlan(validCount));
+
+        List<GenericData1> dataList = new ArrayList<>();
+        for (int i = 0; i <= 16; i++) {
+            dataList.add(newData("2019-10-01"));
+        }
+        for (int i = 0; i < 16; i++) {
+            cache.valid(dataList.get(i));
+        }
+
+        //访问第一个结果之后写入第17个结果，淘汰最久未访问的第二、第三个结果
+        cache.valid(dataList.get(0));
+        cache.valid(dataList.get(16));
+        assertTrue(cache.size() <= 16);
+        assertEquals(2, cache.getEvictionCount());
+
+        int count = validCount.get();
+        cache.valid(dataList.get(0));
+        cache.valid(dataList.get(16));
+        assertEquals(count, validCount.get());
+
+        cache.valid(dataList.get(1));
+        assertEquals(count + 1, validCount.get());
+    }
+
+    @Test
+    public void expiredResultIsValidatedAgain() throws InterruptedException {
+        AtomicInteger validCount = new AtomicInteger();
+        ValidationCache<GenericData1> cache = ValidationCache.<GenericData1>builder()
+                .expireAfterWrite(50, TimeUnit.MILLISECONDS)
+                .build(countingPlan(validCount));
+
+        GenericData1 data = newData("2019-10-01");
+        cache.valid(data);
+        cache.valid(data);
+        assertEquals(1, validCount.get());
+
+        Thread.sleep(80);
+        cache.valid(data);
+        assertEquals(2, validCount.get());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void invalidateRemovesResult() {
+        AtomicInteger validCount = new AtomicInteger();
+        ValidationCache<GenericData1> cache = ValidationCache.<GenericData1>builder().build(countingPlan(validCount));
+
+        GenericData1 data = newData("2019-10-01");
+        cache.valid(data);
+        cache.invalidate(data);
+        cache.valid(data);
+        assertEquals(2, validCount.get());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void validBeanValidatorIsCached() {
+        AtomicInteger validCount = new AtomicInteger();
+        ValidationCache<GenericData1> cache = ValidationCache.<GenericData1>builder()
+                .build(data -> {
+                    validCount.incrementAndGet();
+                    ValidBean.ofLazy(data).notEmpty(GenericData1::getStartDate, "开始时间不能为空").complete();
+                });
+
+        GenericData1 data = newData(null);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.valid(data);
+                fail();
+            } catch (ParamException e) {
+                assertEquals("开始时间不能为空", e.getMessage());
+            }
+        }
+        assertEquals(1, validCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveMaximumSizeIsRejected() {
+        ValidationCache.<GenericData1>builder().maximumSize(0);
+    }
+}
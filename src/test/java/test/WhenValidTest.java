@@ -0,0 +1,184 @@
+package test;
+
+import bean.Data2;
+import bean.GenericData1;
+import bean.GenericData2;
+import com.bean.valid.exption.ParamException;
+import com.bean.valid.exption.ValidatedException;
+import com.bean.valid.util.ValidBean;
+import com.bean.valid.util.ValidationPlan;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * when、otherwise、mapIfPresent：不满足条件的分支中方法引用、校验函数与map都不会执行
+ */
+public class WhenValidTest {
+
+    private static final ValidationPlan<Data2<GenericData1, GenericData2>> PLAN =
+            ValidationPlan.<Data2<GenericData1, GenericData2>>builder()
+                    .when(data -> data.getBusinessId() == 1)
+                    .map(Data2::getParams1)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .<Data2<GenericData1, GenericData2>>parent()
+                    .otherwise()
+                    .map(Data2::getParams2)
+                    .notEmpty(GenericData2::getName, "名字不能为空")
+                    .build();
+
+    private static Data2<GenericData1, GenericData2> newData(Integer businessId) {
+        Data2<GenericData1, GenericData2> data = new Data2<>();
+        data.setBusinessId(businessId);
+        data.setParams1(new GenericData1());
+        data.setParams2(new GenericData2());
+        return data;
+    }
+
+    private static <T> Function<T, Object> counting(Function<T, Object> getter, AtomicInteger counter) {
+        return bean -> {
+            counter.incrementAndGet();
+            return getter.apply(bean);
+        };
+    }
+
+    private static String validLazy(Data2<GenericData1, GenericData2> data, AtomicInteger params1Count,
+                                    AtomicInteger params2Count) {
+        try {
+            ValidBean.ofLazy(data)
+                    .when(d -> d.getBusinessId() == 1)
+                    .map(Data2::getParams1)
+                    .notEmpty(counting(GenericData1::getStartDate, params1Count), "开始时间不能为空")
+                    .<Data2<GenericData1, GenericData2>>parent()
+                    .otherwise()
+                    .map(Data2::getParams2)
+                    .notEmpty(counting(GenericData2::getName, params2Count), "名字不能为空")
+                    .complete();
+            return null;
+        } catch (ParamException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    public void onlyMatchedBranchIsValidated() {
+        AtomicInteger params1Count = new AtomicInteger();
+        AtomicInteger params2Count = new AtomicInteger();
+
+        assertEquals("开始时间不能为空", validLazy(newData(1), params1Count, params2Count));
+        assertEquals(1, params1Count.get());
+        assertEquals(0, params2Count.get());
+
+        assertEquals("名字不能为空", validLazy(newData(2), params1Count, params2Count));
+        assertEquals(1, params1Count.get());
+        assertEquals(1, params2Count.get());
+    }
+
+    @Test
+    public void planBranchesMatchLazy() {
+        assertEquals("开始时间不能为空", PLAN.getErrorMsg(newData(1)));
+        assertEquals("名字不能为空", PLAN.getErrorMsg(newData(2)));
+    }
+
+    @Test
+    public void mapInUnmatchedBranchIsNotCalled() {
+        Data2<GenericData1, GenericData2> data = newData(2);
+        data.setParams1(null);
+
+        //map在分支中不会获取子属性，子属性为空也不会抛出异常
+        ValidBean.of(data)
+                .when(d -> d.getBusinessId() == 1)
+                .map(Data2::getParams1)
+                .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                .complete();
+    }
+
+    @Test
+    public void nestedBranchesOfUnmatchedBranchAreSkipped() {
+        AtomicInteger count = new AtomicInteger();
+        ValidBean.ofLazy(newData(2))
+                .when(d -> d.getBusinessId() == 1)
+                .when(d -> {
+                    count.incrementAndGet();
+                    return true;
+                })
+                .notEmpty(counting(Data2::getBusinessList, count), "商户列表不能为空")
+                .otherwise()
+                .notEmpty(counting(Data2::getBusinessList, count), "商户列表不能为空")
+                .complete();
+        assertEquals(0, count.get());
+    }
+
+    @Test
+    public void eagerBranchesThrowImmediately() {
+        AtomicInteger afterCount = new AtomicInteger();
+        try {
+            ValidBean.of(newData(2))
+                    .when(d -> d.getBusinessId() == 1)
+                    .notEmpty(Data2::getBusinessList, "不会执行")
+                    .otherwise()
+                    .notEmpty(Data2::getBusinessList, "商户列表不能为空")
+                    .notEmpty(counting(Data2::getBusinessId, afterCount), "不会执行")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("商户列表不能为空", e.getMessage());
+        }
+        assertEquals(0, afterCount.get());
+    }
+
+    @Test
+    public void mapIfPresentSkipsNullProperty() {
+        AtomicInteger count = new AtomicInteger();
+        Data2<GenericData1, GenericData2> data = newData(1);
+        data.setParams1(null);
+
+        ValidBean.ofLazy(data)
+                .mapIfPresent(Data2::getParams1)
+                .notEmpty(counting(GenericData1::getStartDate, count), "开始时间不能为空")
+                .complete();
+        ValidBean.of(data)
+                .mapIfPresent(Data2::getParams1)
+                .notEmpty(counting(GenericData1::getStartDate, count), "开始时间不能为空")
+                .complete();
+        assertEquals(0, count.get());
+
+        ValidationPlan<Data2<GenericData1, GenericData2>> plan = ValidationPlan.<Data2<GenericData1, GenericData2>>builder()
+                .mapIfPresent(Data2::getParams1)
+                .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                .build();
+        assertNull(plan.getErrorMsg(data));
+        assertEquals("开始时间不能为空", plan.getErrorMsg(newData(1)));
+    }
+
+    @Test
+    public void mapIfPresentValidatesPresentProperty() {
+        try {
+            ValidBean.ofLazy(newData(1))
+                    .mapIfPresent(Data2::getParams1)
+                    .notEmpty(GenericData1::getStartDate, "开始时间不能为空")
+                    .complete();
+            fail();
+        } catch (ParamException e) {
+            assertEquals("开始时间不能为空", e.getMessage());
+        }
+    }
+
+    @Test(expected = ValidatedException.class)
+    public void otherwiseWithoutWhenIsRejected() {
+        ValidBean.ofLazy(newData(1)).otherwise();
+    }
+
+    @Test(expected = ValidatedException.class)
+    public void otherwiseAfterMapIsRejected() {
+        ValidBean.ofLazy(newData(1)).map(Data2::getParams1).otherwise();
+    }
+
+    @Test(expected = ValidatedException.class)
+    public void planOtherwiseWithoutWhenIsRejected() {
+        ValidationPlan.<Data2<GenericData1, GenericData2>>builder().otherwise();
+    }
+}